@@ -0,0 +1,45 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 벤치마크용 애플리케이션 - 메모리 H2 를 사용하고 sql 로그는 끈다.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String property : List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "logging.level.org.hibernate.SQL=warn",
+                "decorator.datasource.p6spy.enable-logging=false")) {
+            put(values, property);
+        }
+        for (String property : properties) {
+            put(values, property); // 뒤에 온 값이 우선
+        }
+        // builder.properties() 는 기본값이라 application.yml 보다 우선순위가 낮다. -> 커맨드라인 인자로 넘긴다.
+        String[] args = values.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+
+    private static void put(Map<String, String> values, String property) {
+        int separator = property.indexOf('=');
+        values.put(property.substring(0, separator), property.substring(separator + 1));
+    }
+}
@@ -0,0 +1,9 @@
+package study.datajpa.benchmark;
+
+// 비교용 close projection - select m.username, m.age 만 조회한다.
+public interface ClosedUsernameOnly {
+
+    String getUsername();
+
+    int getAge();
+}
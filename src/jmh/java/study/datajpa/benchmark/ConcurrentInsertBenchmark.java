@@ -0,0 +1,45 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 8 스레드가 동시에 save (요청마다 트랜잭션 하나 + insert 하나) - 회원 시퀀스 할당 크기별 처리량.
+ * incrementSize=1 이면 insert 마다 시퀀스를 조회한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ConcurrentInsertBenchmark {
+
+    @Param({"1", "50", "1000"})
+    private int incrementSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    @Setup
+    public void setUp() {
+        // 시퀀스 increment 가 다르면 hibernate 가 시작할 때 실패하므로 할당 크기마다 db 를 따로 쓴다.
+        context = BenchmarkApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:insert" + incrementSize + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.id.increment_size.member_seq=" + incrementSize,
+                "repository.index-advisor.mode=off");
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Member save() {
+        return memberRepository.save(new Member("concurrent", 20));
+    }
+}
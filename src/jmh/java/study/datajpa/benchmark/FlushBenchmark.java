@@ -0,0 +1,69 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 5만개 엔티티가 있는 영속성 컨텍스트에서 1% 를 수정하고 flush 하는 시간.
+ * 바이트코드 향상(dirty tracking)이 없으면 flush 때 5만개 모두 스냅샷과 필드별로 비교한다.
+ * 향상 없이 비교하려면 ./gradlew jmh -PhibernateEnhance=false
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class FlushBenchmark {
+
+    private static final int ENTITIES = 50_000;
+    private static final int MODIFIED = ENTITIES / 100;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "repository.index-advisor.mode=off",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        emf = context.getBean(EntityManagerFactory.class);
+        context.getBean(JdbcTemplate.class).update("insert into member (member_id, username, age, version)" +
+                " select x + 1000000, 'flush' || x, mod(x, 100), 0 from system_range(1, ?)", ENTITIES);
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        members = em.createQuery("select m from Member m where m.username like 'flush%'", Member.class).getResultList();
+        for (int i = 0; i < MODIFIED; i++) {
+            members.get(i * 100).setAge(members.get(i * 100).getAge() + 1);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void flush() {
+        em.flush();
+    }
+}
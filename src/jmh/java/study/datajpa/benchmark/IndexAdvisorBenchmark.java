@@ -0,0 +1,67 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.IndexAdvisor;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100만건에서 findByUsername - 인덱스 없음(전체 스캔) vs IndexAdvisor 가 만든 인덱스.
+ * 엔티티에 선언한 username 인덱스(idx_member_username_id) 는 지우고 시작한다. 쿼리 캐시는 끈다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndexAdvisorBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean advisorIndexes;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "repository.index-advisor.mode=off",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("drop index idx_member_username_id");
+        jdbcTemplate.update("delete from member"); // MemberController.init() 이 넣은 회원
+        // h2 - system_range 로 한번에 insert
+        jdbcTemplate.update("insert into member (member_id, username, age, version)" +
+                " select x, 'member' || x, mod(x, 100), 0 from system_range(1, ?)", rows);
+        if (advisorIndexes) {
+            IndexAdvisor indexAdvisor = context.getBean(IndexAdvisor.class);
+            indexAdvisor.createIndexes(indexAdvisor.missingIndexes());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findByUsername() {
+        String username = "member" + (ThreadLocalRandom.current().nextInt(rows) + 1);
+        return readOnly.execute(status -> memberRepository.findByUsername(username));
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * save() 반복 vs saveAllBatched() 대량 저장 시간. rows/s = rows / score
+ * perTransactionAuditing=false 는 엔티티마다 작성자(UUID)/시간을 만드는 기존 방식이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class MemberBulkInsertBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean perTransactionAuditing;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("auditing.per-transaction=" + perTransactionAuditing);
+        memberRepository = context.getBean(MemberRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare() {
+        jdbcTemplate.update("delete from member");
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member("bulk" + i, i % 100));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // MemberController.init() 의 기존 방식 : save 마다 트랜잭션 + insert 1번
+    @Benchmark
+    public void saveLoop() {
+        for (Member member : members) {
+            memberRepository.save(member);
+        }
+    }
+
+    @Benchmark
+    public int saveAllBatched() {
+        return memberRepository.saveAllBatched(members, 1000);
+    }
+}
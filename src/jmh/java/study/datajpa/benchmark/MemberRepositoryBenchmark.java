@@ -0,0 +1,103 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레파지토리 조회 방식별 처리량(ops/s)과 호출당 할당량(gc.alloc.rate.norm) 비교.
+ * 매 호출은 읽기 전용 트랜잭션 하나 - 영속성 컨텍스트는 호출마다 새로 시작한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberRepositoryBenchmark {
+
+    private static final int TEAMS = 10;
+    private static final int MEMBERS_PER_TEAM = 100;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            Team team = teamRepository.save(new Team("team" + i));
+            for (int j = 0; j < MEMBERS_PER_TEAM; j++) {
+                members.add(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+        memberRepository.saveAllBatched(members, 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findByUsername() {
+        return readOnly.execute(status -> memberRepository.findByUsername("member5_50"));
+    }
+
+    @Benchmark
+    public Object findAllPageable() {
+        return readOnly.execute(status -> memberRepository.findAll(PageRequest.of(10, 20, Sort.by("username"))));
+    }
+
+    @Benchmark
+    public List<Member> findMemberFetchJoin() {
+        return readOnly.execute(status -> memberRepository.findMemberFetchJoin());
+    }
+
+    @Benchmark
+    public List<Member> findMemberEntityGraph() {
+        return readOnly.execute(status -> memberRepository.findMemberEntityGraph());
+    }
+
+    @Benchmark
+    public List<MemberDto> findMemberDto() {
+        return readOnly.execute(status -> memberRepository.findMemberDto());
+    }
+
+    @Benchmark
+    public String usernameOnlyProjection() {
+        return readOnly.execute(status -> memberRepository.findProductionsByUsername("member5_50").get(0).getUsername());
+    }
+
+    @Benchmark
+    public String nestedClosedProjection() {
+        return readOnly.execute(status -> memberRepository
+                .findProductionsGenericByUsername("member5_50", NestedClosedProjections.class)
+                .get(0).getTeam().getName());
+    }
+
+    @Benchmark
+    public Object nativeProjectionQuery() {
+        return readOnly.execute(status -> {
+            List<MemberProjection> content = memberRepository.findByNativeProejctionQuery(PageRequest.of(0, 20)).getContent();
+            content.forEach(MemberProjection::getUsername);
+            return content;
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * native 쿼리 페이지 조회 - 인터페이스 프로젝션(Map 기반 프록시) vs 생성자 row mapper(MethodHandle)
+ * ROWS 건 한 페이지를 읽으므로 결과는 초당 행 수, -prof gc 의 alloc.rate.norm 은 행당 할당량이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(NativeProjectionBenchmark.ROWS)
+public class NativeProjectionBenchmark {
+
+    static final int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Team team = context.getBean(TeamRepository.class).save(new Team("nativeTeam"));
+        List<Member> members = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            members.add(new Member("native" + i, i, team));
+        }
+        memberRepository.saveAllBatched(members, 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void proxyProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findByNativeProejctionQuery(PageRequest.of(0, ROWS))
+                .forEach(projection -> blackhole.consume(projection.getTeamName())));
+    }
+
+    @Benchmark
+    public void constructorRowMapper(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findMemberDtoNative(PageRequest.of(0, ROWS))
+                .forEach(dto -> blackhole.consume(dto.getTeamName())));
+    }
+}
@@ -0,0 +1,94 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 자주 변경되는 회원(HOT_MEMBERS 명)을 writers 개 스레드가 동시에 변경할 때 초당 update 수.
+ * - pessimistic : findLockByUsername (select ... for update) - 락을 기다리는 동안 커넥션을 잡고 있다.
+ * - optimistic : updateWithRetry (@Version) - 충돌하면 백오프 후 재시도
+ * 한번 실행에 UPDATES 건을 writers 에 나눠서 실행한다. 충돌률은 repository.optimistic.attempts 메트릭 참고.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OptimisticContentionBenchmark {
+
+    private static final int HOT_MEMBERS = 16;
+    private static final int UPDATES = 1024;
+
+    @Param({"8", "32", "128"})
+    private int writers;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transaction;
+    private ExecutorService pool;
+    private final List<Member> hotMembers = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:contention;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+                "repository.optimistic.max-attempts=100", // 128 writers 에서도 포기하지 않게
+                "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=off"); // 충돌마다 남는 error 로그
+        memberRepository = context.getBean(MemberRepository.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        for (int i = 0; i < HOT_MEMBERS; i++) {
+            hotMembers.add(memberRepository.save(new Member("hot" + i, 0)));
+        }
+        pool = Executors.newFixedThreadPool(writers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void pessimistic() throws Exception {
+        run(() -> transaction.executeWithoutResult(status -> {
+            Member member = memberRepository.findLockByUsername(randomHotMember().getUsername());
+            member.setAge(member.getAge() + 1);
+        }));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void optimistic() throws Exception {
+        run(() -> memberRepository.updateWithRetry(randomHotMember().getId(), member -> member.setAge(member.getAge() + 1)));
+    }
+
+    private void run(Runnable update) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            int updates = UPDATES / writers;
+            futures.add(pool.submit(() -> {
+                for (int j = 0; j < updates; j++) {
+                    update.run();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private Member randomHotMember() {
+        return hotMembers.get(ThreadLocalRandom.current().nextInt(HOT_MEMBERS));
+    }
+}
@@ -0,0 +1,85 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /members 한 요청 - 엔티티 페이지를 조회한 뒤 page.map(MemberDto::new) vs 쿼리에서 바로 dto (select new)
+ * 한 번 호출이 한 요청이므로 -prof gc 의 alloc.rate.norm 이 요청당 할당 바이트다.
+ * 요청마다 트랜잭션(영속성 컨텍스트)을 새로 열어서 컨트롤러(OSIV)와 같은 조건으로 잰다.
+ * count 는 각 메소드의 기본값 그대로다. (findAll 은 매번 count, findAllDto 는 @PageCount(CACHED) 로 재사용)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageDtoBenchmark {
+
+    @Param({"20", "200"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "repository.index-advisor.mode=off",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            teams.add(context.getBean(TeamRepository.class).save(new Team("pageTeam" + i)));
+        }
+        List<Member> members = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            members.add(new Member("page" + i, i, teams.get(i % teams.size())));
+        }
+        memberRepository.saveAllBatched(members, 1000);
+        pageable = PageRequest.of(1, pageSize, Sort.by("username"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void entityThenMap(Blackhole blackhole) {
+        blackhole.consume(readOnly.execute(status -> {
+            Page<MemberDto> page = memberRepository.findAll(pageable).map(MemberDto::new);
+            page.forEach(dto -> blackhole.consume(dto.getTeamName()));
+            return page;
+        }));
+    }
+
+    @Benchmark
+    public void selectNewDto(Blackhole blackhole) {
+        blackhole.consume(readOnly.execute(status -> {
+            Page<MemberDto> page = memberRepository.findAllDto(pageable);
+            page.forEach(dto -> blackhole.consume(dto.getTeamName()));
+            return page;
+        }));
+    }
+}
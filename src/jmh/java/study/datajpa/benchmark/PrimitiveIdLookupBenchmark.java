@@ -0,0 +1,77 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.LongObjectMap;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * id 목록 조회 - findAllById(Iterable<Long>) 와 findAllByIds(long[]) 의 처리량 / 호출당 할당량 비교.
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm (build.gradle 의 jmh 설정에 포함) 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PrimitiveIdLookupBenchmark {
+
+    private static final int MEMBERS = 10_000;
+
+    @Param({"100", "2000"})
+    private int lookups;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+    private long[] ids;
+    private List<Long> boxedIds;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        memberRepository.saveAllBatched(members, 1000);
+
+        Random random = new Random(42);
+        ids = new long[lookups];
+        boxedIds = new ArrayList<>(lookups);
+        for (int i = 0; i < lookups; i++) {
+            ids[i] = members.get(random.nextInt(MEMBERS)).getId();
+            boxedIds.add(ids[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findAllById() {
+        return readOnly.execute(status -> memberRepository.findAllById(boxedIds));
+    }
+
+    @Benchmark
+    public LongObjectMap<Member> findAllByIds() {
+        return readOnly.execute(status -> memberRepository.findAllByIds(ids));
+    }
+
+    @Benchmark
+    public boolean existsAll() {
+        return readOnly.execute(status -> memberRepository.existsAll(ids));
+    }
+}
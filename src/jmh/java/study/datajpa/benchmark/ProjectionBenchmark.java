@@ -0,0 +1,103 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로젝션 방식별 행당 비용 (조회 + 값 읽기) - open(SpEL) / close 인터페이스 / dto / 중첩 프로젝션
+ * 같은 username 인 회원 ROWS 명을 한번에 조회하고 결과를 행 수로 나눈다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ProjectionBenchmark.ROWS)
+public class ProjectionBenchmark {
+
+    static final int ROWS = 1000;
+    private static final String USERNAME = "projection";
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+    private final SpelAwareProxyProjectionFactory defaultFactory = new SpelAwareProxyProjectionFactory();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Team team = context.getBean(TeamRepository.class).save(new Team("projectionTeam"));
+        List<Member> members = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            members.add(new Member(USERNAME, i, team));
+        }
+        memberRepository.saveAllBatched(members, 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // open projection - @Value 가 참조하는 컬럼만 조회, SpEL 은 메소드마다 한번만 파싱 (CompiledProjectionFactory)
+    @Benchmark
+    public void openSpel(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findProductionsByUsername(USERNAME)
+                .forEach(projection -> blackhole.consume(projection.getUsername())));
+    }
+
+    // 같은 open projection 을 엔티티로 조회 (쿼리 메소드)
+    @Benchmark
+    public void openSpelEntity(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findProductionsGenericByUsername(USERNAME, UsernameOnly.class)
+                .forEach(projection -> blackhole.consume(projection.getUsername())));
+    }
+
+    // 같은 엔티티를 기본 팩토리로 프로젝션 - 프록시마다 SpEL 파싱
+    @Benchmark
+    public void openSpelDefaultFactory(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findByUsername(USERNAME)
+                .forEach(member -> blackhole.consume(defaultFactory.createProjection(UsernameOnly.class, member).getUsername())));
+    }
+
+    @Benchmark
+    public void closedInterface(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository
+                .findProductionsGenericByUsername(USERNAME, ClosedUsernameOnly.class)
+                .forEach(projection -> blackhole.consume(projection.getUsername() + " " + projection.getAge())));
+    }
+
+    @Benchmark
+    public void dto(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findProductionsDtoByUsername(USERNAME)
+                .forEach(projection -> blackhole.consume(projection.getUsername())));
+    }
+
+    // 중첩 프로젝션 - 메소드 이름 쿼리는 team 을 엔티티로 조회한다.
+    @Benchmark
+    public void nestedDerived(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository
+                .findProductionsGenericByUsername(USERNAME, NestedClosedProjections.class)
+                .forEach(projection -> blackhole.consume(projection.getTeam().getName())));
+    }
+
+    @Benchmark
+    public void nestedSingleQuery(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository
+                .findProjectionsByUsername(USERNAME, NestedClosedProjections.class)
+                .forEach(projection -> blackhole.consume(projection.getTeam().getName())));
+    }
+}
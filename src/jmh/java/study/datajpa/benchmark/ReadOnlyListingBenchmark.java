@@ -0,0 +1,76 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberReadOnlyRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10만건 목록 조회 - 일반 레파지토리와 @ReadOnlyRepository 비교.
+ * 서비스의 기본 @Transactional(읽기/쓰기) 안에서 조회하고 커밋시 플러시(변경감지)까지 포함한다.
+ * 스냅샷 유무의 차이는 gc.alloc.rate.norm 으로 확인한다.
+ * 2차 캐시 put 비용이 섞이지 않도록 캐시는 끈다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyListingBenchmark {
+
+    private static final int MEMBERS = 100_000;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberReadOnlyRepository memberReadOnlyRepository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        memberRepository = context.getBean(MemberRepository.class);
+        memberReadOnlyRepository = context.getBean(MemberReadOnlyRepository.class);
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        memberRepository.saveAllBatched(members, 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // 스냅샷 생성 + 커밋시 10만건 변경감지
+    @Benchmark
+    public int managed() {
+        return readWrite.execute(status -> memberRepository.findMemberCustom().size());
+    }
+
+    // 바깥 트랜잭션은 읽기/쓰기지만 read-only 로 로딩
+    @Benchmark
+    public int readOnlyRepository() {
+        return readWrite.execute(status -> memberReadOnlyRepository.findAll().size());
+    }
+
+    // 참고용 - 트랜잭션 자체를 읽기 전용으로 시작한 경우
+    @Benchmark
+    public int readOnlyTransaction() {
+        return readOnly.execute(status -> memberRepository.findMemberCustom().size());
+    }
+}
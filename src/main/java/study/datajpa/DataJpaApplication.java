@@ -3,13 +3,20 @@ package study.datajpa;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import study.datajpa.config.TransactionScopedAuditing;
+import study.datajpa.repository.MemberRepository;
 
 import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider") // AuditingConfig
+// MemberRepository 는 ProjectionRepositoryConfig 에서 따로 등록한다. (프로젝션 팩토리 교체)
+@EnableJpaRepositories(excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = MemberRepository.class))
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -17,8 +24,9 @@ public class DataJpaApplication {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
 
+	// 작성자는 트랜잭션마다 한번만 만든다. (엔티티마다 UUID 를 만들지 않는다)
 	@Bean
-	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+	public AuditorAware<String> auditorProvider(TransactionScopedAuditing auditing) {
+		return () -> Optional.of(auditing.resolve("auditor", () -> UUID.randomUUID().toString()));
 	}
 }
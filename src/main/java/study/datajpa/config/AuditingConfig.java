@@ -0,0 +1,17 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+
+import java.util.Optional;
+
+@Configuration
+public class AuditingConfig {
+
+    // @CreatedDate, @LastModifiedDate - 같은 트랜잭션에서는 같은 시간 (@EnableJpaAuditing(dateTimeProviderRef))
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider(TransactionScopedAuditing auditing) {
+        return () -> Optional.of(auditing.now());
+    }
+}
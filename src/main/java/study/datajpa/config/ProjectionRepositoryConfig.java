@@ -0,0 +1,19 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import study.datajpa.repository.CompiledProjectionRepositoryFactoryBean;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 인터페이스 프로젝션을 많이 쓰는 MemberRepository 만 CompiledProjectionRepositoryFactoryBean 으로 만든다.
+ * 나머지 레파지토리는 DataJpaApplication 의 @EnableJpaRepositories (기본 팩토리) 로 등록된다.
+ */
+@Configuration
+@EnableJpaRepositories(basePackageClasses = MemberRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = MemberRepository.class),
+        repositoryFactoryBeanClass = CompiledProjectionRepositoryFactoryBean.class)
+public class ProjectionRepositoryConfig {
+}
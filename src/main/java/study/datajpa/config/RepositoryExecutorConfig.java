@@ -0,0 +1,81 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Slf4j
+@Configuration
+@EnableAsync // 레파지토리의 @Async("repositoryExecutor") 메소드
+public class RepositoryExecutorConfig {
+
+    private static final String THREAD_NAME_PREFIX = "repository-";
+
+    /**
+     * 레파지토리 쿼리를 다른 스레드에서 실행할 때 사용하는 executor (count 쿼리 동시 실행, @Async 쿼리 등).
+     * 스레드마다 커넥션을 하나씩 쓰므로 커넥션 풀 크기를 넘지 않게 하고,
+     * 큐가 차면 호출한 스레드가 직접 실행해서 더 받지 않는다. (backpressure)
+     *
+     * Java 21 이상이면 작업마다 가상 스레드를 만들고 동시 실행 수를 커넥션 풀 크기로 제한한다.
+     * 제한에 걸리면 호출한 스레드가 자리가 날 때까지 기다린다. (backpressure)
+     */
+    @Bean
+    public AsyncTaskExecutor repositoryExecutor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        ThreadFactory virtualThreadFactory = virtualThreadFactory();
+        if (virtualThreadFactory != null) {
+            log.info("repositoryExecutor uses virtual threads (concurrency limit {})", maximumPoolSize);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(virtualThreadFactory);
+            executor.setConcurrencyLimit(maximumPoolSize);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maximumPoolSize);
+        executor.setMaxPoolSize(maximumPoolSize);
+        executor.setQueueCapacity(maximumPoolSize * 10);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        return executor;
+    }
+
+    /**
+     * repositoryExecutor 도 Executor 빈이라서 부트의 applicationTaskExecutor 자동 설정이 빠진다. (@ConditionalOnMissingBean(Executor))
+     * 자동 설정과 같은 빈(spring.task.execution.* 설정)을 직접 등록해서
+     * 이름 없는 @Async 와 mvc 비동기 요청은 레파지토리 풀이 아니라 여기서 실행되게 한다.
+     */
+    @Lazy
+    @Primary
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory() - 소스는 Java 11 이므로 리플렉션으로 호출한다.
+    static ThreadFactory virtualThreadFactory() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads are not available", e);
+        }
+    }
+}
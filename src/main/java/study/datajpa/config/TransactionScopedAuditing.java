@@ -0,0 +1,74 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * auditing 값(작성자, 시간) 을 트랜잭션마다 한번만 만들어서 그 트랜잭션에서 flush 되는 엔티티에 같은 값을 쓴다.
+ * 엔티티마다 UUID.randomUUID() (SecureRandom) 와 LocalDateTime.now() 를 부르지 않으므로 대량 저장에서 차이가 난다.
+ * 트랜잭션 밖이거나 auditing.per-transaction=false 면 호출할 때마다 새로 만든다.
+ * 시간은 Clock 빈이 하나 있으면 그 Clock 으로 (테스트 - Clock.fixed), 없으면 시스템 시계로 읽는다.
+ */
+@Component
+public class TransactionScopedAuditing {
+
+    private static final String NOW = "now";
+
+    private final Clock clock;
+    private final boolean perTransaction;
+
+    public TransactionScopedAuditing(ObjectProvider<Clock> clock,
+                                     @Value("${auditing.per-transaction:true}") boolean perTransaction) {
+        this.clock = clock.getIfUnique(Clock::systemDefaultZone);
+        this.perTransaction = perTransaction;
+    }
+
+    public LocalDateTime now() {
+        return resolve(NOW, () -> LocalDateTime.now(clock));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T resolve(String key, Supplier<T> supplier) {
+        if (!perTransaction || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return supplier.get();
+        }
+        return (T) values().computeIfAbsent(key, k -> supplier.get());
+    }
+
+    // 현재 트랜잭션에 묶인 값들 - 트랜잭션이 끝나면 버린다. (REQUIRES_NEW 로 중단된 동안은 새 트랜잭션이 따로 만든다)
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> values() {
+        Map<String, Object> values = (Map<String, Object>) TransactionSynchronizationManager.getResource(this);
+        if (values == null) {
+            Map<String, Object> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(TransactionScopedAuditing.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(TransactionScopedAuditing.this, bound);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedAuditing.this);
+                }
+            });
+            values = bound;
+        }
+        return values;
+    }
+}
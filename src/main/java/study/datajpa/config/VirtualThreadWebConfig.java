@@ -0,0 +1,100 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * virtual-threads 프로파일 : tomcat 요청 처리를 가상 스레드에서 한다. (Java 21 이상)
+ * 컨트롤러 -> @Transactional -> 레파지토리 호출이 모두 요청 스레드에서 실행되므로 함께 가상 스레드가 된다.
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadWebConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        log.info("tomcat handles requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * 가상 스레드는 수천개씩 만들어지므로 커넥션 풀(hikari) 앞에서 동시 요청 수를 풀 크기로 제한한다.
+     * 풀에서 기다리면 connection-timeout 후 예외가 나지만, 여기서는 acquire-timeout 안에 자리가 나지 않으면 503 으로 바로 거절한다.
+     */
+    @Bean
+    public FilterRegistrationBean<ConnectionLimitFilter> connectionLimitFilter(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${web.connection-limit.acquire-timeout:2s}") Duration acquireTimeout) {
+        FilterRegistrationBean<ConnectionLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConnectionLimitFilter(maximumPoolSize, acquireTimeout));
+        registration.addUrlPatterns("/members/*", "/members");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() - 소스는 Java 11 이므로 리플렉션으로 호출한다.
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("virtual-threads profile requires Java 21+, running " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads are not available", e);
+        }
+    }
+
+    static class ConnectionLimitFilter extends OncePerRequestFilter {
+
+        private final Semaphore permits;
+        private final long acquireTimeoutNanos;
+
+        ConnectionLimitFilter(int permits, Duration acquireTimeout) {
+            this.permits = new Semaphore(permits, true);
+            this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "too many concurrent requests");
+                return;
+            }
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+
+    private static final List<String> CACHE_STATISTICS =
+            List.of("CacheHits", "CacheMisses", "CachePuts", "CacheEvictions", "CacheRemovals");
+
+    private final EntityManagerFactory emf;
+
+    // http://localhost:8080/caches
+    // 캐시(region) 별 통계는 JCache 가 JMX 로 제공하는 값을 그대로 보여준다. (application.conf monitoring.statistics)
+    @GetMapping("/caches")
+    public Map<String, Object> caches() throws JMException {
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+            Map<String, Object> region = new LinkedHashMap<>();
+            for (String attribute : CACHE_STATISTICS) {
+                region.put(attribute, server.getAttribute(name, attribute));
+            }
+            result.put(name.getKeyProperty("Cache"), region);
+        }
+
+        // 쿼리 캐시 / 쿼리 플랜 캐시는 hibernate 통계가 켜져 있어야 한다. (dev 프로파일 generate_statistics)
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+        Map<String, Object> query = new LinkedHashMap<>();
+        query.put("hits", statistics.getQueryCacheHitCount());
+        query.put("misses", statistics.getQueryCacheMissCount());
+        query.put("puts", statistics.getQueryCachePutCount());
+        result.put("queryCache", query);
+
+        // jpql -> sql 변환 결과(쿼리 플랜) 캐시 - miss 가 계속 늘면 in 절처럼 매번 sql 이 달라지는 쿼리가 있다.
+        Map<String, Object> plan = new LinkedHashMap<>();
+        plan.put("hits", statistics.getQueryPlanCacheHitCount());
+        plan.put("misses", statistics.getQueryPlanCacheMissCount());
+        result.put("queryPlanCache", plan);
+        return result;
+    }
+}
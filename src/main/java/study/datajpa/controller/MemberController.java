@@ -1,27 +1,48 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.CursorWindow;
+import study.datajpa.repository.MemberCursor;
+import study.datajpa.repository.MemberReadOnlyRepository;
 import study.datajpa.repository.MemberRepository;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberRepository memberRepository;
+    private final MemberReadOnlyRepository memberReadOnlyRepository;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+        // 조회만 하므로 read-only 레파지토리 사용 -> 스냅샷, 플러시 없음
+        Member member = memberReadOnlyRepository.findById(id).get();
         return member.getUsername();
     }
 
@@ -37,12 +58,76 @@ public class MemberController {
     // 요청파라미터 : page, size (default = 20개), sort
     // 전역설정시 : default 값 변경시 application.yml data.web.pageable 설정
     // 개별설정시 : @PageableDefault (우선권을 가짐)
+    // totalCount 는 10초간 재사용 (findAllDto 의 @PageCount)
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
 
-        Page<Member> page = memberRepository.findAll(pageable);// inline ctrl + alt + N
-        // 반드시 dto 로 반환해야 한다.
-        return page.map(MemberDto::new);
+        // 반드시 dto 로 반환해야 한다. 엔티티를 조회해서 page.map(MemberDto::new) 하지 않고 쿼리에서 바로 dto 로 만든다.
+        // (필요한 컬럼만 조회, 영속성 컨텍스트에 엔티티가 쌓이지 않는다) sort 는 엔티티 프로퍼티(age, team.name ...) 와 dto 프로퍼티(teamName)
+        return memberRepository.findAllDto(pageable);
+    }
+
+    // http://localhost:8080/members/async?page=0&size=5
+    // 요청 스레드는 바로 반환되고 content / count 쿼리는 repositoryExecutor 에서 동시에 실행된다.
+    @GetMapping("/members/async")
+    public CompletableFuture<Page<MemberDto>> listAsync(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
+        return memberRepository.findAllAsync(pageable);
+    }
+
+    // 없는 프로퍼티로 정렬하거나 (?sort=unknown) 잘못된 cursor 면 500 이 아니라 400
+    @ExceptionHandler({PropertyReferenceException.class, InvalidDataAccessApiUsageException.class, IllegalArgumentException.class})
+    public ResponseEntity<String> badRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // http://localhost:8080/members?cursor=&size=5 (첫 페이지) -> 응답의 nextCursor 를 다음 요청의 cursor 로 넘긴다.
+    // offset 페이징과 달리 깊은 페이지도 첫 페이지와 비용이 같고 count 쿼리가 없다. (username, id 순 고정)
+    @GetMapping(value = "/members", params = "cursor")
+    public CursorWindow<MemberDto> listByCursor(@RequestParam("cursor") String cursor,
+                                                @RequestParam(value = "size", defaultValue = "5") int size) {
+        MemberCursor after = cursor.isEmpty() ? null : MemberCursor.decode(cursor);
+        CursorWindow<Member> window = memberRepository.findAllAfter(after, Math.min(Math.max(size, 1), 2000));
+        return window.map(MemberDto::new);
+    }
+
+    // http://localhost:8080/members/export?format=csv (기본 ndjson)
+    // 전체를 List 로 모아서 반환하지 않고 커서로 읽으면서 한줄씩 response 에 바로 쓴다. -> 건수와 상관없이 메모리 사용량 일정
+    // stream 은 트랜잭션(커넥션)이 열려 있는 동안만 읽을 수 있다.
+    @Transactional(readOnly = true)
+    @GetMapping("/members/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        Writer writer = response.getWriter();
+        if (csv) {
+            writer.write("id,username,teamName\n");
+        }
+        try (Stream<MemberDto> members = memberRepository.streamAllMembers()) {
+            Iterator<MemberDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                MemberDto dto = iterator.next();
+                writer.write(csv ? toCsvLine(dto) : objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private String toCsvLine(MemberDto dto) {
+        return dto.getId() + "," + csvValue(dto.getUsername()) + "," + csvValue(dto.getTeamName());
+    }
+
+    private String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 
     // @Transactional(read = true) 가 있으면 flush 를 안한다.
@@ -53,8 +138,11 @@ public class MemberController {
     @PostConstruct
     public void init() {
         // memberRepository.save(new Member("userA"));
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-             memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        // save 를 100번 호출하지 않고 batch insert 로 한번에 저장
+        memberRepository.saveAllBatched(members, 100);
     }
 }
@@ -6,11 +6,11 @@ import study.datajpa.entity.Member;
 @Data
 public class MemberDto {
 
-    private Long id;
+    private long id; // Member.id 가 long 이므로 박싱하지 않는다.
     private String username;
     private String teamName;
 
-    public MemberDto(Long id, String username, String teamName) {
+    public MemberDto(long id, String username, String teamName) {
         this.id = id;
         this.username = username;
         this.teamName = teamName;
@@ -36,6 +36,17 @@ public class Item implements Persistable<String> {
         this.id = id;
     }
 
+    // jdbc 로 직접 insert 한 경우 - @CreatedDate 가 동작하지 않으므로 직접 채우고, 이후 save 는 merge 로 동작한다.
+    public void markCreated(LocalDateTime createdDate) {
+        if (this.createdDate == null) {
+            this.createdDate = createdDate;
+        }
+    }
+
+    public LocalDateTime getCreatedDate() {
+        return createdDate;
+    }
+
     @Override
     public boolean isNew() {
         return createdDate == null;
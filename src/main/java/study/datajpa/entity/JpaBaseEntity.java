@@ -3,12 +3,12 @@ package study.datajpa.entity;
 import lombok.Getter;
 
 import javax.persistence.Column;
+import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
-import javax.persistence.PrePersist;
-import javax.persistence.PreUpdate;
 import java.time.LocalDateTime;
 
 @Getter
+@EntityListeners(JpaBaseEntityListener.class) // @PrePersist, @PreUpdate - 시간은 트랜잭션마다 한번만 읽는다.
 @MappedSuperclass // 속성만 내려서 텡블에 생성
 public class JpaBaseEntity {
 
@@ -17,15 +17,12 @@ public class JpaBaseEntity {
 
     private LocalDateTime updateDate;
 
-    @PrePersist
-    public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+    void created(LocalDateTime now) {
         createdDate = now;
         updateDate = now;
     }
 
-    @PreUpdate
-    public void preUpdate() {
-        updateDate = LocalDateTime.now();
+    void updated(LocalDateTime now) {
+        updateDate = now;
     }
 }
@@ -0,0 +1,29 @@
+package study.datajpa.entity;
+
+import study.datajpa.config.TransactionScopedAuditing;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * JpaBaseEntity 의 생성/수정 시간을 채운다.
+ * hibernate 가 스프링 빈 컨테이너로 리스너를 만들기 때문에 (SpringBeanContainer) 생성자 주입을 받을 수 있다.
+ */
+public class JpaBaseEntityListener {
+
+    private final TransactionScopedAuditing auditing;
+
+    public JpaBaseEntityListener(TransactionScopedAuditing auditing) {
+        this.auditing = auditing;
+    }
+
+    @PrePersist
+    public void prePersist(JpaBaseEntity entity) {
+        entity.created(auditing.now());
+    }
+
+    @PreUpdate
+    public void preUpdate(JpaBaseEntity entity) {
+        entity.updated(auditing.now());
+    }
+}
@@ -1,6 +1,11 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -8,18 +13,31 @@ import javax.persistence.*;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = @Index(name = "idx_member_username_id", columnList = "username, member_id")) // keyset 페이징 정렬 키
+@Cacheable // 쿼리 캐시와 Team.members 컬렉션 캐시는 id 만 저장하므로 Member 엔티티도 캐시해야 한다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @NamedQuery(
     name="Member.findByUsername",
     query="select m from Member m where m.username = :username"
 )
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    // 시퀀스를 50개씩 미리 할당(pooled-lo) 받아서 insert 마다 시퀀스를 조회하지 않는다. -> jdbc batch insert 가능
+    // 할당 크기는 id.increment_size.member_seq 설정으로 바꿀 수 있다. (PooledLoSequenceGenerator)
+    @Id @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
     @Column(name = "member_id")
     private long id;
     private String username;
     private int age;
 
+    // 낙관적 락 : update 시 where version = ? 로 충돌을 확인한다. (벌크 update 는 직접 올려야 한다)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -0,0 +1,94 @@
+package study.datajpa.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔티티마다 시퀀스를 따로 쓰고 pooled-lo 로 시퀀스 값 하나에 increment_size 개의 id 를 할당한다.
+ * (시퀀스 값 v -> v ~ v + increment_size - 1)
+ *
+ * hibernate 의 optimizer 는 synchronized 라서 여러 스레드가 동시에 save 하면 id 를 받을 때마다 줄을 선다.
+ * 여기서는 현재 블록의 다음 id 를 AtomicLong 으로 꺼내고 (락 없음), 블록을 다 쓴 스레드만 락을 잡고 시퀀스를 조회한다.
+ *
+ * increment_size 는 hibernate 설정 id.increment_size.{sequence_name} 으로 바꿀 수 있다.
+ *   spring.jpa.properties.id.increment_size.member_seq: 1000
+ * 시퀀스의 increment 도 같이 바뀌므로 이미 만들어진 시퀀스가 있으면 db 에서도 바꿔야 한다.
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "study.datajpa.entity.PooledLoSequenceGenerator";
+    public static final String INCREMENT_SIZE_SETTING_PREFIX = "id.increment_size.";
+
+    private final Object refillLock = new Object();
+    private volatile Block block = new Block(0, 0);
+    private Integer configuredIncrementSize;
+    private int incrementSize;
+    private Class<?> identifierClass;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings()
+                .get(INCREMENT_SIZE_SETTING_PREFIX + params.getProperty(SEQUENCE_PARAM));
+        if (setting != null) {
+            configuredIncrementSize = Integer.valueOf(setting.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+        incrementSize = getDatabaseStructure().getIncrementSize();
+        identifierClass = type.getReturnedClass();
+    }
+
+    @Override
+    protected int determineIncrementSize(Properties params) {
+        return configuredIncrementSize != null ? configuredIncrementSize : super.determineIncrementSize(params);
+    }
+
+    @Override
+    protected String determineOptimizationStrategy(Properties params, int incrementSize) {
+        return StandardOptimizerDescriptor.POOLED_LO.getExternalName();
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.limit) {
+                return toIdentifier(id);
+            }
+            synchronized (refillLock) {
+                if (block == current) { // 다른 스레드가 먼저 채웠으면 새 블록에서 다시 꺼낸다.
+                    long low = getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue();
+                    block = new Block(low, low + incrementSize);
+                }
+            }
+        }
+    }
+
+    private Serializable toIdentifier(long id) {
+        if (identifierClass == Long.class || identifierClass == long.class) {
+            return id;
+        }
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(identifierClass).initialize(id).makeValue();
+    }
+
+    private static class Block {
+
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long low, long limit) {
+            this.next = new AtomicLong(low);
+            this.limit = limit;
+        }
+    }
+}
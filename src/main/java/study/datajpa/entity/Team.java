@@ -1,6 +1,14 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,12 +18,24 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cacheable // 2차 캐시 : 팀은 거의 변경되지 않으므로 조회할 때마다 db 에 가지 않는다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") // region 이름 = application.conf 캐시 이름
 public class Team {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "team_seq_generator") // 회원과 시퀀스를 따로 쓴다. (PooledLoSequenceGenerator)
+    @GenericGenerator(name = "team_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teamMembers") // 컬렉션 캐시 (member id 목록만 캐시된다)
+    @OptimisticLock(excluded = true) // 회원이 팀에 추가될 때마다 팀 version 이 올라가서 충돌하지 않게 한다.
+    @LazyCollection(LazyCollectionOption.EXTRA) // changeTeam() 의 add 나 size() 는 컬렉션 전체를 로딩하지 않는다.
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
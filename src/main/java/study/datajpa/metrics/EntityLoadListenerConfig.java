@@ -0,0 +1,29 @@
+package study.datajpa.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 엔티티가 로딩(hydrate)될 때마다 SqlStatistics 의 엔티티 수를 올린다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class EntityLoadListenerConfig {
+
+    private final EntityManagerFactory emf;
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> SqlStatistics.current().entityLoaded());
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * flush 할 때마다 영속성 컨텍스트의 엔티티 수를 기록한다. - hibernate.persistence.context.entities
+ * (스프링은 트랜잭션마다 영속성 컨텍스트를 만드므로 트랜잭션 하나의 1차 캐시 크기)
+ * warn-threshold 를 넘으면 세션마다 한번 경고한다. -> 긴 트랜잭션은 나눠서 flush + clear (@AutoFlushClear)
+ */
+@Slf4j
+@Configuration
+public class PersistenceContextSizeGuard {
+
+    private final EntityManagerFactory emf;
+    private final DistributionSummary managedEntities;
+    private final int warnThreshold;
+    private final Set<EventSource> warned = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public PersistenceContextSizeGuard(EntityManagerFactory emf, MeterRegistry registry,
+                                       @Value("${repository.persistence-context.warn-threshold:10000}") int warnThreshold) {
+        this.emf = emf;
+        this.warnThreshold = warnThreshold;
+        this.managedEntities = DistributionSummary.builder("hibernate.persistence.context.entities")
+                .description("managed entities in the persistence context at flush")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.FLUSH, (FlushEventListener) this::flushed);
+    }
+
+    private void flushed(FlushEvent event) {
+        EventSource session = event.getSession();
+        int managed = session.getPersistenceContextInternal().getNumberOfManagedEntities();
+        managedEntities.record(managed);
+        if (managed >= warnThreshold && warned.add(session)) {
+            log.warn("persistence context holds {} entities (threshold {}) - every flush dirty-checks all of them;"
+                    + " flush and clear periodically or use @AutoFlushClear", managed, warnThreshold);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * hibernate 쿼리 플랜 캐시 hit/miss - hibernate.cache.query.plan{result=hit|miss}
+ * (micrometer HibernateMetrics 와 같은 이름, generate_statistics 가 켜져 있을 때만 - dev 프로파일)
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return; // 항상 0 인 값을 내보내지 않는다.
+        }
+        FunctionCounter.builder("hibernate.cache.query.plan", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit")
+                .description("query plans retrieved from cache")
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.query.plan", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss")
+                .description("query plan lookups not found in cache")
+                .register(registry);
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레파지토리 메소드 한번 호출 동안 늘어난 SqlStatistics 를 repository, method 태그로 히스토그램에 기록한다.
+ * 미터는 메소드마다 처음 호출할 때 한번만 등록하고, 이후 호출은 builder / 레지스트리 조회 없이 기록만 한다.
+ */
+class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final String repository;
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    RepositoryMetricsInterceptor(Class<?> repositoryInterface, MeterRegistry meterRegistry) {
+        this.repository = repositoryInterface.getSimpleName();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        SqlStatistics statistics = SqlStatistics.current();
+        SqlStatistics before = statistics.copy();
+        try {
+            return invocation.proceed();
+        } finally {
+            meters.computeIfAbsent(invocation.getMethod(), method -> new Meters(method.getName()))
+                    .record(statistics.since(before));
+        }
+    }
+
+    // 오버로드된 메소드는 이름이 같으므로 같은 미터를 공유한다. (register 는 같은 이름 + 태그면 기존 미터를 돌려준다)
+    private class Meters {
+
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final DistributionSummary entities;
+        private final Timer time;
+
+        private Meters(String method) {
+            this.statements = summary("repository.sql.statements", method);
+            this.rows = summary("repository.sql.rows", method);
+            this.entities = summary("repository.entities.hydrated", method);
+            this.time = Timer.builder("repository.sql.time")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private void record(SqlStatistics delta) {
+            statements.record(delta.getStatements());
+            rows.record(delta.getRows());
+            entities.record(delta.getEntities());
+            time.record(delta.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private DistributionSummary summary(String name, String method) {
+            return DistributionSummary.builder(name)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.metrics;
+
+import lombok.Getter;
+
+/**
+ * 현재 스레드에서 실행된 sql 통계 (누적값).
+ * p6spy 리스너와 hibernate post-load 리스너가 쿼리를 실행한 스레드에서 값을 올린다.
+ */
+@Getter
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = ThreadLocal.withInitial(SqlStatistics::new);
+
+    private long statements;  // 실행된 sql 수 (executeBatch 는 1번)
+    private long jdbcNanos;   // jdbc 실행 시간
+    private long rows;        // ResultSet.next() 로 읽은 행 수
+    private long entities;    // 로딩(hydrate)된 엔티티 수
+
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    void statementExecuted(long elapsedNanos) {
+        statements++;
+        jdbcNanos += elapsedNanos;
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    void entityLoaded() {
+        entities++;
+    }
+
+    void reset() {
+        statements = 0;
+        jdbcNanos = 0;
+        rows = 0;
+        entities = 0;
+    }
+
+    SqlStatistics copy() {
+        SqlStatistics copy = new SqlStatistics();
+        copy.statements = statements;
+        copy.jdbcNanos = jdbcNanos;
+        copy.rows = rows;
+        copy.entities = entities;
+        return copy;
+    }
+
+    // before 이후에 늘어난 만큼
+    SqlStatistics since(SqlStatistics before) {
+        SqlStatistics delta = new SqlStatistics();
+        delta.statements = statements - before.statements;
+        delta.jdbcNanos = jdbcNanos - before.jdbcNanos;
+        delta.rows = rows - before.rows;
+        delta.entities = entities - before.entities;
+        return delta;
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.metrics;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트 리스너 - 로그를 파싱하지 않고 jdbc 호출마다 SqlStatistics 를 올린다.
+ * 빈으로 등록하면 p6spy-spring-boot-starter 가 데이터소스에 연결해준다.
+ */
+@Component
+public class SqlStatisticsListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStatistics.current().statementExecuted(timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        if (hasNext) {
+            SqlStatistics.current().rowFetched();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메소드가 끝났을 때 영속성 컨텍스트의 엔티티 수가 threshold 이상이면 flush + clear 한다. (AutoFlushClearAspect)
+ * 한 트랜잭션에서 대량으로 저장하면 1차 캐시가 계속 커지고 flush 마다 전체를 변경감지해서 O(n^2) 이 된다.
+ *
+ * clear 하면 호출한 쪽이 가지고 있던 엔티티도 준영속이 되므로 (이후 변경은 반영되지 않는다)
+ * 저장하고 다시 수정하지 않는 쓰기 위주의 메소드에만 붙인다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AutoFlushClear {
+
+    int threshold() default 1000;
+}
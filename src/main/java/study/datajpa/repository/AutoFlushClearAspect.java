@@ -0,0 +1,33 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+@Slf4j
+@Aspect
+@Component
+public class AutoFlushClearAspect {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @AfterReturning("@annotation(autoFlushClear)")
+    public void flushAndClearIfLarge(AutoFlushClear autoFlushClear) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return; // 트랜잭션이 없으면 영속성 컨텍스트도 호출마다 새로 만들어진다.
+        }
+        int managed = em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        if (managed >= autoFlushClear.threshold()) {
+            log.debug("flush and clear {} managed entities", managed);
+            em.flush();
+            em.clear();
+        }
+    }
+}
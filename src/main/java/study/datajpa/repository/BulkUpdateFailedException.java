@@ -0,0 +1,21 @@
+package study.datajpa.repository;
+
+/**
+ * 벌크 업데이트 파티션 실패 - getJob() 을 MemberBulkUpdateExecutor.execute() 에 다시 넘기면 이어서 실행한다.
+ */
+public class BulkUpdateFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    // job 은 실행 중인 상태(완료 파티션)라서 직렬화하지 않는다. 같은 jvm 에서 이어서 실행할 때만 쓴다.
+    private final transient BulkUpdateJob job;
+
+    public BulkUpdateFailedException(BulkUpdateJob job, Throwable cause) {
+        super("bulk update failed after " + job.getCompletedPartitions() + "/" + job.getTotalPartitions() + " partitions", cause);
+        this.job = job;
+    }
+
+    public BulkUpdateJob getJob() {
+        return job;
+    }
+}
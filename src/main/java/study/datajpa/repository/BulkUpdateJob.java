@@ -0,0 +1,91 @@
+package study.datajpa.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * id 범위로 나눈 벌크 업데이트 작업과 진행 상황.
+ * 파티션은 각자 트랜잭션으로 커밋되므로, 실패하면 이 객체를 그대로 다시 실행해서 끝나지 않은 파티션만 이어서 처리한다.
+ */
+public class BulkUpdateJob {
+
+    private final int age;
+    private final List<Partition> partitions;
+    private final Set<Partition> completed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong updatedRows = new AtomicLong();
+    private volatile RuntimeException failure;
+
+    BulkUpdateJob(int age, List<Partition> partitions) {
+        this.age = age;
+        this.partitions = Collections.unmodifiableList(new ArrayList<>(partitions));
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public int getTotalPartitions() {
+        return partitions.size();
+    }
+
+    public int getCompletedPartitions() {
+        return completed.size();
+    }
+
+    public long getUpdatedRows() {
+        return updatedRows.get();
+    }
+
+    public boolean isDone() {
+        return completed.size() == partitions.size();
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    List<Partition> getRemainingPartitions() {
+        return partitions.stream()
+                .filter(partition -> !completed.contains(partition))
+                .collect(Collectors.toList());
+    }
+
+    void completed(Partition partition, int rows) {
+        if (completed.add(partition)) {
+            updatedRows.addAndGet(rows);
+        }
+    }
+
+    boolean isFailed() {
+        return failure != null;
+    }
+
+    void failed(RuntimeException e) {
+        failure = e;
+    }
+
+    void restart() {
+        failure = null;
+    }
+
+    /** member_id 가 fromId 이상 toId 이하 */
+    static class Partition {
+        final long fromId;
+        final long toId;
+
+        Partition(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + fromId + ", " + toId + "]";
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.jpa.projection.CollectionAwareProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 인터페이스 프로젝션을 ProxyFactory + 인터셉터 체인 대신 jdk 프록시 하나로 만든다.
+ * 인터페이스마다 메소드 -> 접근 방법을 한번만 계산해두고 행마다 재사용한다.
+ *
+ * close projection : 쿼리 결과(tuple -> Map) 에서 getter 이름으로 값을 꺼낸다. 중첩 프로젝션은 값이 Map 이면 같은 방식으로 만든다. (ProjectionSelect 참고)
+ * open projection : @Value 의 SpEL 은 메소드마다 한번만 파싱해서 행마다 평가만 한다. source 는 엔티티나
+ *   SpEL 이 참조하는 target 프로퍼티만 조회한 Map 이다. (targetProperties, ProjectionSelect)
+ *   (기본 SpelAwareProxyProjectionFactory 는 프록시를 만들 때마다 SpEL 을 다시 파싱한다)
+ * 여기서 처리하지 않는 메소드(@Value 가 없는 open projection getter, 컬렉션 getter 등)는 기본 팩토리가 만든 프록시에 위임한다.
+ *
+ * 빈 하나를 레파지토리(CompiledProjectionRepositoryFactoryBean)와 MemberRepositoryImpl 이 같이 쓴다.
+ * 빈이어야 BeanFactory / ClassLoader 를 받아서 @Value("#{@bean...}") 가 어디서 만들든 같게 동작한다.
+ */
+@Component
+class CompiledProjectionFactory extends CollectionAwareProjectionFactory {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+    private static final ParserContext PARSER_CONTEXT = new TemplateParserContext(); // #{...}
+    private static final Object DELEGATE = new Object(); // 기본 팩토리 프록시에 위임
+    private static final String TARGET = "target";
+    // 상태가 없으므로 평가 컨텍스트끼리 같이 쓴다. (Map source 는 target.username 을 key 로 읽는다)
+    private static final List<PropertyAccessor> PROPERTY_ACCESSORS = List.of(new MapAccessor(), new ReflectivePropertyAccessor());
+
+    private final Map<Class<?>, Optional<CompiledProjection>> compiled = new ConcurrentHashMap<>();
+    private BeanResolver beanResolver;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        super.setBeanFactory(beanFactory);
+        this.beanResolver = new BeanFactoryResolver(beanFactory); // @Value("#{@bean.method(target)}")
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T createProjection(Class<T> projectionType, Object source) {
+        if (projectionType.isInterface() && source != null) {
+            Optional<CompiledProjection> projection = compiled.computeIfAbsent(projectionType, this::compile);
+            if (projection.isPresent() && projection.get().supports(source)) {
+                return (T) projection.get().newInstance(source);
+            }
+        }
+        return super.createProjection(projectionType, source);
+    }
+
+    private <T> T delegate(Class<T> projectionType, Object source) {
+        return super.createProjection(projectionType, source);
+    }
+
+    private Optional<CompiledProjection> compile(Class<?> projectionType) {
+        ProjectionInformation information = getProjectionInformation(projectionType);
+        boolean closed = information.isClosed();
+        // 메소드 -> 프로퍼티 이름(String), 중첩 프로젝션(NestedProjection), SpEL(Expression), default 메소드(MethodHandle), DELEGATE
+        Map<Method, Object> accessors = new HashMap<>();
+        for (Method method : projectionType.getMethods()) {
+            if (method.isDefault()) {
+                accessors.put(method, defaultMethodHandle(projectionType, method));
+                continue;
+            }
+            Value value = method.getAnnotation(Value.class);
+            if (value != null) {
+                accessors.put(method, PARSER.parseExpression(value.value(), PARSER_CONTEXT));
+                continue;
+            }
+            PropertyDescriptor property = BeanUtils.findPropertyForMethod(method);
+            Class<?> returnType = method.getReturnType();
+            if (!closed || property == null || method.getParameterCount() > 0) {
+                accessors.put(method, DELEGATE);
+            } else if (BeanUtils.isSimpleValueType(ClassUtils.resolvePrimitiveIfNecessary(returnType))) {
+                accessors.put(method, property.getName());
+            } else if (isNestedProjection(returnType)) {
+                accessors.put(method, new NestedProjection(property.getName(), returnType));
+            } else {
+                accessors.put(method, DELEGATE);
+            }
+        }
+        return Optional.of(new CompiledProjection(projectionType, closed, accessors));
+    }
+
+    /**
+     * open projection 이 읽는 target 프로퍼티 이름 (target.username + ' ' + target.age -> [username, age])
+     * target 자체나 target 의 메소드를 쓰면 엔티티가 있어야 하므로 null 이다.
+     * @Value 가 없는 getter 는 그 프로퍼티를 읽는다.
+     */
+    List<String> targetProperties(Class<?> projectionType) {
+        Optional<CompiledProjection> projection = compiled.computeIfAbsent(projectionType, this::compile);
+        if (projection.isEmpty() || projection.get().closed) {
+            return null;
+        }
+        Set<String> properties = new LinkedHashSet<>();
+        for (Map.Entry<Method, Object> accessor : projection.get().accessors.entrySet()) {
+            Object value = accessor.getValue();
+            if (value instanceof MethodHandle) {
+                continue; // default 메소드는 다른 getter 를 부른다.
+            }
+            if (value instanceof Expression) {
+                if (!collectTargetProperties((Expression) value, properties)) {
+                    return null;
+                }
+                continue;
+            }
+            PropertyDescriptor property = BeanUtils.findPropertyForMethod(accessor.getKey());
+            if (property == null || accessor.getKey().getParameterCount() > 0) {
+                return null;
+            }
+            properties.add(property.getName());
+        }
+        return new ArrayList<>(properties);
+    }
+
+    private static boolean collectTargetProperties(Expression expression, Set<String> properties) {
+        if (expression instanceof CompositeStringExpression) { // 'a #{...} b #{...}'
+            for (Expression part : ((CompositeStringExpression) expression).getExpressions()) {
+                if (!collectTargetProperties(part, properties)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expression instanceof SpelExpression) {
+            return collectTargetProperties(((SpelExpression) expression).getAST(), properties);
+        }
+        return true; // 리터럴
+    }
+
+    private static boolean collectTargetProperties(SpelNode node, Set<String> properties) {
+        int start = 0;
+        if (node instanceof CompoundExpression && isTarget(node.getChild(0))) {
+            if (!(node.getChild(1) instanceof PropertyOrFieldReference)) {
+                return false; // target.method()
+            }
+            properties.add(((PropertyOrFieldReference) node.getChild(1)).getName());
+            start = 2; // target.username.length() 의 나머지는 조회한 값에 대해 실행된다.
+        } else if (isTarget(node)) {
+            return false; // target 자체
+        }
+        for (int i = start; i < node.getChildCount(); i++) {
+            if (!collectTargetProperties(node.getChild(i), properties)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTarget(SpelNode node) {
+        return node instanceof PropertyOrFieldReference && TARGET.equals(((PropertyOrFieldReference) node).getName());
+    }
+
+    static boolean isNestedProjection(Class<?> type) {
+        return type.isInterface() && !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type);
+    }
+
+    private static MethodHandle defaultMethodHandle(Class<?> projectionType, Method method) {
+        try {
+            return MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup())
+                    .unreflectSpecial(method, method.getDeclaringClass());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("cannot access default method " + method + " of " + projectionType, e);
+        }
+    }
+
+    private static class NestedProjection {
+
+        private final String property;
+        private final Class<?> type;
+
+        private NestedProjection(String property, Class<?> type) {
+            this.property = property;
+            this.type = type;
+        }
+    }
+
+    // SpEL 의 root 객체 - 기본 팩토리와 같이 target, args 를 쓸 수 있다.
+    static class SpelRoot {
+
+        private final Object target;
+        private final Object[] args;
+
+        SpelRoot(Object target, Object[] args) {
+            this.target = target;
+            this.args = args;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+
+        public Object[] getArgs() {
+            return args;
+        }
+    }
+
+    private class CompiledProjection {
+
+        private final Class<?> projectionType;
+        private final boolean closed;
+        private final Map<Method, Object> accessors;
+
+        private CompiledProjection(Class<?> projectionType, boolean closed, Map<Method, Object> accessors) {
+            this.projectionType = projectionType;
+            this.closed = closed;
+            this.accessors = accessors;
+        }
+
+        // close projection 은 tuple(Map), open projection 은 엔티티와 target 프로퍼티 Map 을 처리한다.
+        boolean supports(Object source) {
+            return !closed || source instanceof Map;
+        }
+
+        Object newInstance(Object source) {
+            Object[] delegate = new Object[1]; // 위임이 필요할 때만 기본 프록시를 만든다.
+            InvocationHandler handler = (proxy, method, args) -> {
+                Object accessor = accessors.get(method);
+                if (accessor instanceof String) {
+                    return convert(((Map<?, ?>) source).get(accessor), method.getReturnType());
+                }
+                if (accessor instanceof Expression) {
+                    Object value = ((Expression) accessor).getValue(evaluationContext(source, args));
+                    return convert(value, method.getReturnType());
+                }
+                if (accessor instanceof NestedProjection) {
+                    NestedProjection nested = (NestedProjection) accessor;
+                    Object value = ((Map<?, ?>) source).get(nested.property);
+                    return value == null ? null : createProjection(nested.type, value);
+                }
+                if (accessor instanceof MethodHandle) {
+                    return ((MethodHandle) accessor).bindTo(proxy).invokeWithArguments(args == null ? new Object[0] : args);
+                }
+                if (accessor == null) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return projectionType.getSimpleName() + (closed ? source : "[" + source + "]");
+                        default:
+                    }
+                }
+                if (delegate[0] == null) {
+                    delegate[0] = delegate(projectionType, source);
+                }
+                try {
+                    return method.invoke(delegate[0], args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            };
+            return Proxy.newProxyInstance(projectionType.getClassLoader(), new Class<?>[]{projectionType}, handler);
+        }
+
+        // 평가마다 새로 만든다. (StandardEvaluationContext 는 변수 / root 를 바꿀 수 있어서 스레드끼리 같이 쓰면 안된다)
+        // 프로퍼티 접근 캐시는 파싱한 Expression 에 있으므로 행마다 다시 찾지 않는다.
+        private StandardEvaluationContext evaluationContext(Object source, Object[] args) {
+            StandardEvaluationContext context = new StandardEvaluationContext(new SpelRoot(source, args));
+            context.setPropertyAccessors(PROPERTY_ACCESSORS);
+            if (beanResolver != null) {
+                context.setBeanResolver(beanResolver);
+            }
+            return context;
+        }
+
+        // 쿼리 결과 타입이 getter 타입과 다르면 (예: Long -> int) 변환
+        private Object convert(Object value, Class<?> returnType) {
+            if (value == null || returnType == void.class || ClassUtils.resolvePrimitiveIfNecessary(returnType).isInstance(value)) {
+                return value;
+            }
+            return CONVERSION_SERVICE.convert(value, returnType);
+        }
+    }
+}
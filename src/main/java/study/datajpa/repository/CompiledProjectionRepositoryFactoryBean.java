@@ -0,0 +1,75 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.JpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 인터페이스 프로젝션을 CompiledProjectionFactory 로 만드는 JpaRepositoryFactory 를 사용한다.
+ * (ProjectionRepositoryConfig 에서 필요한 레파지토리에만 지정) 나머지 설정은 JpaRepositoryFactoryBean 과 같다.
+ */
+public class CompiledProjectionRepositoryFactoryBean<T extends Repository<S, ID>, S, ID> extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private EntityPathResolver entityPathResolver = SimpleEntityPathResolver.INSTANCE;
+    private EscapeCharacter escapeCharacter = EscapeCharacter.DEFAULT;
+    private JpaQueryMethodFactory queryMethodFactory;
+    private CompiledProjectionFactory projectionFactory;
+
+    public CompiledProjectionRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    // 부모의 @Autowired setter 를 재정의하면 애노테이션도 다시 붙여야 주입된다.
+    @Override
+    @Autowired
+    public void setEntityPathResolver(ObjectProvider<EntityPathResolver> resolver) {
+        super.setEntityPathResolver(resolver);
+        this.entityPathResolver = resolver.getIfAvailable(() -> SimpleEntityPathResolver.INSTANCE);
+    }
+
+    @Override
+    @Autowired(required = false)
+    public void setQueryMethodFactory(@Nullable JpaQueryMethodFactory factory) {
+        super.setQueryMethodFactory(factory);
+        this.queryMethodFactory = factory;
+    }
+
+    @Autowired
+    void setProjectionFactory(CompiledProjectionFactory projectionFactory) {
+        this.projectionFactory = projectionFactory;
+    }
+
+    @Override
+    public void setEscapeCharacter(char escapeCharacter) {
+        super.setEscapeCharacter(escapeCharacter);
+        this.escapeCharacter = EscapeCharacter.of(escapeCharacter);
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        JpaRepositoryFactory factory = new JpaRepositoryFactory(entityManager) {
+            @Override
+            protected ProjectionFactory getProjectionFactory(ClassLoader classLoader, BeanFactory beanFactory) {
+                return projectionFactory; // 빈으로 등록된 팩토리 (MemberRepositoryImpl 과 같이 쓴다)
+            }
+        };
+        factory.setEntityPathResolver(entityPathResolver);
+        factory.setEscapeCharacter(escapeCharacter);
+        if (queryMethodFactory != null) {
+            factory.setQueryMethodFactory(queryMethodFactory);
+        }
+        return factory;
+    }
+}
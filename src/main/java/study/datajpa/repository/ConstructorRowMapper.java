@@ -0,0 +1,111 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * native 쿼리 결과를 dto 생성자에 컬럼 순서대로 넘긴다. (프록시, 컬럼 이름으로 찾기, setter 리플렉션 없음)
+ * 생성자는 한번만 찾아서 MethodHandle 로 만들어 두고 행마다 호출한다. (행마다 Constructor.newInstance 리플렉션 없음)
+ * jdbc ResultSet (mapRow) 과 jpa native 쿼리의 Object[] 행 (map) 을 모두 받는다.
+ * 컬럼 별칭이 파라미터 이름과 맞는지는 check() 로 시작할 때 확인한다.
+ * (프로젝션처럼 별칭이 틀리면 조용히 null 이 나오는 대신 애플리케이션 시작이 실패한다)
+ */
+class ConstructorRowMapper<T> implements RowMapper<T> {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final Class<T> type;
+    private final Constructor<T> constructor;
+    private final Class<?>[] parameterTypes;
+    private final String[] parameterNames;
+    private final MethodHandle factory; // (Object[]) -> Object
+
+    ConstructorRowMapper(Class<T> type) {
+        this.type = type;
+        this.constructor = simpleValueConstructor(type);
+        this.parameterTypes = constructor.getParameterTypes();
+        this.parameterNames = new DefaultParameterNameDiscoverer().getParameterNames(constructor);
+        try {
+            this.factory = MethodHandles.publicLookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("cannot access constructor " + constructor, e);
+        }
+    }
+
+    // 파라미터가 모두 단순 값인 생성자 하나 (MemberDto(long, String, String))
+    @SuppressWarnings("unchecked")
+    static <T> Constructor<T> simpleValueConstructor(Class<T> type) {
+        Constructor<?>[] candidates = Arrays.stream(type.getConstructors())
+                .filter(c -> c.getParameterCount() > 0 && Arrays.stream(c.getParameterTypes())
+                        .allMatch(p -> BeanUtils.isSimpleValueType(ClassUtils.resolvePrimitiveIfNecessary(p))))
+                .toArray(Constructor<?>[]::new);
+        if (candidates.length != 1) {
+            throw new IllegalArgumentException(type.getName() + " must have exactly one constructor with simple value parameters");
+        }
+        return (Constructor<T>) candidates[0];
+    }
+
+    // 컬럼 수와 별칭 (대소문자 무시) 이 생성자 파라미터와 같은지 확인
+    void check(String sql, ResultSetMetaData metaData) throws SQLException {
+        if (metaData.getColumnCount() != parameterTypes.length) {
+            throw new IllegalStateException(String.format("%s expects %d columns but query returns %d: %s",
+                    constructor, parameterTypes.length, metaData.getColumnCount(), sql));
+        }
+        if (parameterNames == null) {
+            return; // -parameters 없이 컴파일된 경우 순서만 믿는다.
+        }
+        for (int i = 0; i < parameterNames.length; i++) {
+            String label = JdbcUtils.lookupColumnName(metaData, i + 1);
+            if (!parameterNames[i].equalsIgnoreCase(label)) {
+                throw new IllegalStateException(String.format("column %d of query is '%s' but %s expects '%s': %s",
+                        i + 1, label, constructor.getDeclaringClass().getSimpleName(), parameterNames[i], sql));
+            }
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Object[] args = new Object[parameterTypes.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = JdbcUtils.getResultSetValue(rs, i + 1, parameterTypes[i]);
+        }
+        return newInstance(args);
+    }
+
+    // em.createNativeQuery() 의 결과 행 - 드라이버 타입이 파라미터 타입과 다르면 (예: BigInteger -> long) 변환한다.
+    T map(Object[] row) {
+        Object[] args = new Object[parameterTypes.length];
+        for (int i = 0; i < args.length; i++) {
+            Object value = row[i];
+            Class<?> parameterType = ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i]);
+            args[i] = value == null || parameterType.isInstance(value) ? value : CONVERSION_SERVICE.convert(value, parameterType);
+        }
+        return newInstance(args);
+    }
+
+    private T newInstance(Object[] args) {
+        try {
+            return type.cast((Object) factory.invokeExact(args));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to create " + type.getName(), e);
+        }
+    }
+}
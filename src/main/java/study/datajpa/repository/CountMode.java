@@ -0,0 +1,25 @@
+package study.datajpa.repository;
+
+/**
+ * Page 조회시 totalCount 를 구하는 방법.
+ * 첫 페이지가 size 보다 적거나 마지막 페이지면 content 로 계산하고 count 쿼리를 생략한다. (CONCURRENT 제외)
+ * 레파지토리 메소드의 @PageCount 나 repository.page-count.mode 로 정한다.
+ */
+public enum CountMode {
+
+    /** count 쿼리 실행 */
+    EXACT,
+
+    /** 같은 쿼리 + 파라미터의 count 결과를 잠깐(10초) 재사용 - 그 사이 변경은 반영되지 않는다. */
+    CACHED,
+
+    /** 테이블 통계의 추정 행 수 - 조건 없는 전체 조회만 가능하고 나머지는 EXACT 로 동작 */
+    APPROXIMATE,
+
+    /**
+     * count 쿼리를 다른 스레드(커넥션)에서 content 조회와 동시에 실행 - 현재 트랜잭션의 커밋 전 변경은 보이지 않는다.
+     * content 보다 먼저 시작하므로 count 를 생략할 수 있는 페이지에서도 count 쿼리가 실행된다. (커넥션 하나 + 쿼리 하나 추가)
+     * 마지막 페이지 / 작은 결과가 많은 조회라면 EXACT 가 낫다.
+     */
+    CONCURRENT
+}
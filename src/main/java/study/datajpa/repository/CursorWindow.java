@@ -0,0 +1,32 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * keyset 페이징 결과 - Page 와 달리 totalCount 가 없으므로 count 쿼리가 나가지 않는다.
+ * nextCursor 를 다음 요청에 그대로 넘기면 이어서 조회된다. (마지막이면 null)
+ */
+@Getter
+public class CursorWindow<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorWindow(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+
+    // page.map(MemberDto::new) 처럼 dto 로 변환
+    public <U> CursorWindow<U> map(Function<? super T, ? extends U> converter) {
+        return new CursorWindow<>(content.stream().map(converter).collect(Collectors.toList()), nextCursor);
+    }
+}
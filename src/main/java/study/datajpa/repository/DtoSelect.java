@@ -0,0 +1,151 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.mapping.PropertyPath;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import java.beans.Introspector;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * dto 생성자 파라미터 이름으로 select new 절을 만든다. 엔티티를 로딩하지 않고 필요한 컬럼만 조회해서 dto 로 바로 만든다.
+ *   MemberDto(long id, String username, String teamName)
+ *   -> select new study.datajpa.dto.MemberDto(m.id, m.username, team.name) from Member m left join m.team team
+ * 파라미터 이름이 엔티티 속성이면 그 속성, 아니면 연관 엔티티 이름 + 속성 이름 (teamName -> team.name, left join) 이다.
+ * join 별칭은 연관 속성 이름과 같게 해서 ?sort=team.name 이 join 을 그대로 쓰게 한다. (QueryUtils.applySorting)
+ *
+ * 정렬은 엔티티 조회(findAll(pageable)) 와 같이 엔티티 프로퍼티 경로(age, createdBy, team.name ...)를 받고,
+ * dto 프로퍼티 이름(teamName)도 받는다. 없는 프로퍼티면 PropertyReferenceException 이다.
+ */
+class DtoSelect {
+
+    private final Class<?> entityType;
+    private final String alias;
+    private final String select;
+    private final Map<String, String> dtoProperties = new LinkedHashMap<>(); // dto 프로퍼티 -> 엔티티 경로 (teamName -> team.name)
+    private final Set<String> joins = new LinkedHashSet<>(); // left join 한 연관 속성 (= join 별칭)
+    private final String idProperty;
+
+    DtoSelect(Metamodel metamodel, Class<?> entityType, Class<?> dtoType, String alias) {
+        EntityType<?> entity = metamodel.entity(entityType);
+        Constructor<?> constructor = ConstructorRowMapper.simpleValueConstructor(dtoType);
+        String[] names = new DefaultParameterNameDiscoverer().getParameterNames(constructor);
+        if (names == null) {
+            throw new IllegalStateException("constructor parameter names of " + dtoType.getName() + " are not available (-parameters)");
+        }
+        List<String> selections = new ArrayList<>();
+        for (String name : names) {
+            String path = path(metamodel, entity, name);
+            dtoProperties.put(name, path);
+            int dot = path.indexOf('.');
+            if (dot > 0) {
+                joins.add(path.substring(0, dot));
+            }
+            selections.add(dot > 0 ? path : alias + "." + path);
+        }
+        StringBuilder jpql = new StringBuilder("select new ").append(dtoType.getName())
+                .append('(').append(String.join(", ", selections)).append(')')
+                .append(" from ").append(entity.getName()).append(' ').append(alias);
+        joins.forEach(association -> jpql.append(" left join ").append(alias).append('.').append(association).append(' ').append(association));
+        this.entityType = entityType;
+        this.alias = alias;
+        this.select = jpql.toString();
+        this.idProperty = entity.getId(entity.getIdType().getJavaType()).getName();
+    }
+
+    // dto 파라미터 이름 -> 엔티티 경로 (username -> username, teamName -> team.name)
+    private static String path(Metamodel metamodel, EntityType<?> entity, String name) {
+        Attribute<?, ?> attribute = attribute(entity, name);
+        if (attribute != null && !attribute.isAssociation()) {
+            return name;
+        }
+        for (Attribute<?, ?> association : entity.getAttributes()) {
+            String prefix = association.getName();
+            if (!association.isAssociation() || association.isCollection()
+                    || !name.startsWith(prefix) || name.length() == prefix.length() || !Character.isUpperCase(name.charAt(prefix.length()))) {
+                continue;
+            }
+            String property = Introspector.decapitalize(name.substring(prefix.length()));
+            if (attribute(metamodel.entity(association.getJavaType()), property) != null) {
+                return prefix + "." + property;
+            }
+        }
+        throw new IllegalArgumentException("no attribute of " + entity.getName() + " for dto property '" + name + "'");
+    }
+
+    private static Attribute<?, ?> attribute(EntityType<?> entity, String name) {
+        try {
+            return entity.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 요청 정렬을 엔티티 경로 정렬로 바꾼다. 마지막에 id 를 붙인다. (같은 값이 많은 정렬에서도 페이지가 겹치지 않도록)
+     * 프로퍼티는 엔티티 메타데이터로 검증하므로 여기서 나온 경로만 쿼리에 붙는다.
+     */
+    Sort sort(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            String path = dtoProperties.get(order.getProperty());
+            if (path == null) {
+                path = PropertyPath.from(order.getProperty(), entityType).toDotPath(); // 없는 프로퍼티면 PropertyReferenceException
+            }
+            for (PropertyPath part = PropertyPath.from(path, entityType); part != null; part = part.next()) {
+                if (part.isCollection()) {
+                    throw new IllegalArgumentException("cannot sort by collection property: " + order.getProperty());
+                }
+            }
+            int dot = path.indexOf('.');
+            if (dot > 0 && !joins.contains(path.substring(0, dot))) {
+                // join 하지 않은 연관 엔티티로 정렬하면 내부 조인이 되어 연관 엔티티가 없는 행이 빠진다.
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            hasId |= path.equals(idProperty);
+            orders.add(order.withProperty(path));
+        }
+        if (!hasId) {
+            orders.add(Sort.Order.asc(idProperty));
+        }
+        return Sort.by(orders);
+    }
+
+    String query(Sort sort) {
+        return QueryUtils.applySorting(select, sort(sort), alias);
+    }
+
+    /**
+     * native sql 의 order by - 같은 검증(sort()) 을 거친 엔티티 경로를 매핑된 컬럼으로 바꾼다.
+     * sql 의 테이블 별칭은 jpql 과 같아야 한다. (엔티티 alias, 연관 테이블은 연관 속성 이름)
+     *   team.name -> team.name, id -> m.member_id
+     */
+    String orderBy(Sort sort, SessionFactoryImplementor sessionFactory) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort(sort)) {
+            PropertyPath leaf = PropertyPath.from(order.getProperty(), entityType).getLeafProperty();
+            String[] columns = ((AbstractEntityPersister) sessionFactory.getMetamodel()
+                    .entityPersister(leaf.getOwningType().getType())).getPropertyColumnNames(leaf.getSegment());
+            if (columns.length != 1) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            int dot = order.getProperty().indexOf('.');
+            String column = (dot > 0 ? order.getProperty().substring(0, dot) : alias) + "." + columns[0];
+            orders.add((order.isIgnoreCase() ? "lower(" + column + ")" : column) + (order.isAscending() ? " asc" : " desc"));
+        }
+        return " order by " + String.join(", ", orders);
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 큰 Collection 파라미터를 maxSize 씩 나눠서 같은 메소드를 여러번 실행한다. (같은 트랜잭션 안에서 실행된다)
+ * 대상 : 레파지토리 인터페이스에 직접 선언하고 List / Set / Collection 을 반환하는 메소드 중 Collection 파라미터가 하나인 것.
+ * Pageable / Sort 가 있으면 나누면 결과가 달라지므로 제외한다. order by 는 나눈 실행 안에서만 유지된다.
+ */
+class InClauseSplittingInterceptor implements MethodInterceptor {
+
+    private static final int NOT_SPLITTABLE = -1;
+
+    private final Class<?> repositoryInterface;
+    private final int maxSize;
+    private final Map<Method, Integer> collectionParameters = new ConcurrentHashMap<>();
+
+    InClauseSplittingInterceptor(Class<?> repositoryInterface, int maxSize) {
+        this.repositoryInterface = repositoryInterface;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        int index = collectionParameters.computeIfAbsent(method, this::collectionParameter);
+        if (index == NOT_SPLITTABLE
+                || !(invocation.getArguments()[index] instanceof Collection)
+                || ((Collection<?>) invocation.getArguments()[index]).size() <= maxSize) {
+            return invocation.proceed();
+        }
+
+        // 중복 값이 다른 조각에 들어가면 같은 행이 두번 조회되므로 먼저 제거한다.
+        List<?> values = new ArrayList<>(new LinkedHashSet<>((Collection<?>) invocation.getArguments()[index]));
+        Collection<Object> result = Set.class.isAssignableFrom(method.getReturnType()) ? new LinkedHashSet<>() : new ArrayList<>();
+        for (int from = 0; from < values.size(); from += maxSize) {
+            Object[] arguments = invocation.getArguments().clone();
+            arguments[index] = values.subList(from, Math.min(from + maxSize, values.size()));
+            result.addAll((Collection<?>) ((ProxyMethodInvocation) invocation).invocableClone(arguments).proceed());
+        }
+        return result;
+    }
+
+    private int collectionParameter(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (method.getDeclaringClass() != repositoryInterface
+                || (returnType != List.class && returnType != Set.class && returnType != Collection.class)) {
+            return NOT_SPLITTABLE;
+        }
+        int index = NOT_SPLITTABLE;
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Pageable.class.isAssignableFrom(parameterTypes[i]) || Sort.class.isAssignableFrom(parameterTypes[i])) {
+                return NOT_SPLITTABLE;
+            }
+            if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+                if (index != NOT_SPLITTABLE) {
+                    return NOT_SPLITTABLE; // 둘 이상이면 어느 것을 나눌지 알 수 없다.
+                }
+                index = i;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * 레파지토리 쿼리 메소드의 Collection 파라미터가 repository.in-clause.max-size 보다 크면 나눠서 실행하고 결과를 합친다.
+ * 그보다 작은 in 절은 hibernate.query.in_clause_parameter_padding 으로 2의 제곱 크기로 맞춰진다.
+ */
+@Component
+public class InClauseSplittingPostProcessor implements BeanPostProcessor {
+
+    private final int maxSize;
+
+    public InClauseSplittingPostProcessor(@Value("${repository.in-clause.max-size:1000}") int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(new InClauseSplittingInterceptor(repositoryInformation.getRepositoryInterface(), maxSize))));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,349 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 레파지토리 쿼리 메소드(메소드 이름 쿼리, @Query JPQL) 의 조건/정렬 컬럼으로 필요한 인덱스를 추정하고
+ * 실제 db 의 인덱스(DatabaseMetaData.getIndexInfo) 와 비교해서 없는 인덱스를 알려준다.
+ *
+ * 인덱스 컬럼 순서는 같음(=, in) 조건 -> 정렬 -> 범위(>, <, like) 조건 1개.
+ * 다른 인덱스의 앞부분(prefix) 과 같으면 그 인덱스로 처리할 수 있으므로 따로 추천하지 않는다.
+ * or 조건, 연관 엔티티의 프로퍼티 (team.name), native 쿼리는 분석하지 않는다.
+ *
+ * repository.index-advisor.mode : off(기본), report(explain 과 함께 로그), create(인덱스 생성 - dev 프로파일)
+ * 시작할 때마다 (테스트 컨텍스트 포함) 레파지토리 메소드를 분석하고 explain 을 실행하므로 기본은 꺼져 있다.
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    public enum Mode {OFF, REPORT, CREATE}
+
+    private static final Pattern FROM = Pattern.compile("\\bfrom\\s+(\\w+)\\s+(?:as\\s+)?(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile("\\bwhere\\b(.*?)(?:\\border\\s+by\\b|\\bgroup\\s+by\\b|$)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b(.*)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final int MAX_INDEX_NAME_LENGTH = 60;
+
+    private final ListableBeanFactory beanFactory;
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+    private final Mode mode;
+
+    public IndexAdvisor(ListableBeanFactory beanFactory, EntityManagerFactory emf, JdbcTemplate jdbcTemplate,
+                        @Value("${repository.index-advisor.mode:off}") Mode mode) {
+        this.beanFactory = beanFactory;
+        this.emf = emf;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mode = mode;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void advise() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        List<Recommendation> missing = missingIndexes();
+        if (mode == Mode.CREATE) {
+            createIndexes(missing);
+            return;
+        }
+        for (Recommendation recommendation : missing) {
+            log.warn("missing index {} for {}\n{}", recommendation.ddl(), recommendation.getMethods(), explain(recommendation));
+        }
+    }
+
+    public void createIndexes(List<Recommendation> recommendations) {
+        for (Recommendation recommendation : recommendations) {
+            log.info("creating index for {}: {}", recommendation.getMethods(), recommendation.ddl());
+            jdbcTemplate.execute(recommendation.ddl());
+        }
+    }
+
+    // 쿼리 메소드가 필요로 하는데 db 에 없는 인덱스
+    public List<Recommendation> missingIndexes() {
+        List<Recommendation> missing = new ArrayList<>();
+        for (Recommendation recommendation : recommendations()) {
+            if (!isCovered(recommendation.getColumns(), existingIndexes(recommendation.getTable()))) {
+                missing.add(recommendation);
+            }
+        }
+        return missing;
+    }
+
+    // 모든 레파지토리 쿼리 메소드에서 추정한 인덱스 (다른 추천의 prefix 인 것은 합친다)
+    public List<Recommendation> recommendations() {
+        Map<String, Recommendation> byKey = new LinkedHashMap<>();
+        // Repositories 는 엔티티마다 레파지토리를 하나만 가지므로 (MemberRepository, MemberReadOnlyRepository) 팩토리 빈을 모두 본다.
+        for (RepositoryFactoryInformation<?, ?> factory : beanFactory.getBeansOfType(RepositoryFactoryInformation.class, false, false).values()) {
+            RepositoryInformation information = factory.getRepositoryInformation();
+            Class<?> domainType = information.getDomainType();
+            EntityPersister persister = persister(domainType);
+            if (persister == null) {
+                continue;
+            }
+            for (Method method : information.getQueryMethods()) {
+                List<String> columns = columns(method, domainType, (AbstractEntityPersister) persister);
+                if (columns.isEmpty()) {
+                    continue;
+                }
+                String table = ((AbstractEntityPersister) persister).getTableName();
+                byKey.computeIfAbsent(table + columns, key -> new Recommendation(table, columns))
+                        .getMethods().add(information.getRepositoryInterface().getSimpleName() + "." + method.getName());
+            }
+        }
+        // 컬럼이 많은 것부터 보면서 이미 남긴 추천의 prefix 이면 그 추천에 합친다.
+        List<Recommendation> sorted = new ArrayList<>(byKey.values());
+        sorted.sort(Comparator.comparingInt((Recommendation r) -> r.getColumns().size()).reversed());
+        List<Recommendation> merged = new ArrayList<>();
+        for (Recommendation recommendation : sorted) {
+            Recommendation covering = merged.stream()
+                    .filter(r -> r.getTable().equals(recommendation.getTable()) && startsWith(r.getColumns(), recommendation.getColumns()))
+                    .findFirst().orElse(null);
+            if (covering == null) {
+                merged.add(recommendation);
+            } else {
+                covering.getMethods().addAll(recommendation.getMethods());
+            }
+        }
+        return merged;
+    }
+
+    private EntityPersister persister(Class<?> domainType) {
+        try {
+            return emf.unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(domainType);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private List<String> columns(Method method, Class<?> domainType, AbstractEntityPersister persister) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query != null) {
+            return query.nativeQuery() ? Collections.emptyList() : jpqlColumns(query.value(), persister);
+        }
+        try {
+            return derivedColumns(new PartTree(method.getName(), domainType), persister);
+        } catch (RuntimeException e) {
+            return Collections.emptyList(); // named query 등 메소드 이름으로 만들 수 없는 쿼리
+        }
+    }
+
+    private List<String> derivedColumns(PartTree tree, AbstractEntityPersister persister) {
+        if (tree.stream().count() > 1) {
+            return Collections.emptyList(); // or 조건
+        }
+        List<String> equality = new ArrayList<>();
+        List<String> range = new ArrayList<>();
+        for (Part part : tree.getParts()) {
+            if (part.getProperty().hasNext()) {
+                continue; // team.name
+            }
+            String property = part.getProperty().getSegment();
+            switch (part.getType()) {
+                case SIMPLE_PROPERTY:
+                case IN:
+                case IS_NULL:
+                case TRUE:
+                case FALSE:
+                    equality.add(property);
+                    break;
+                case GREATER_THAN:
+                case GREATER_THAN_EQUAL:
+                case LESS_THAN:
+                case LESS_THAN_EQUAL:
+                case BETWEEN:
+                case BEFORE:
+                case AFTER:
+                case STARTING_WITH:
+                    range.add(property);
+                    break;
+                default:
+                    break; // like '%..', not 조건은 인덱스를 타지 않는다.
+            }
+        }
+        List<String> sort = tree.getSort().stream().map(Sort.Order::getProperty).collect(Collectors.toList());
+        return toColumns(equality, sort, range, persister);
+    }
+
+    // select .. from Member m where m.username = :username and m.age > :age order by m.id
+    private List<String> jpqlColumns(String jpql, AbstractEntityPersister persister) {
+        Matcher from = FROM.matcher(jpql);
+        if (!from.find() || !from.group(1).equals(persister.getEntityName().substring(persister.getEntityName().lastIndexOf('.') + 1))) {
+            return Collections.emptyList();
+        }
+        String alias = from.group(2);
+        List<String> equality = new ArrayList<>();
+        List<String> range = new ArrayList<>();
+        Matcher where = WHERE.matcher(jpql);
+        if (where.find()) {
+            String condition = where.group(1);
+            if (Pattern.compile("\\bor\\b", Pattern.CASE_INSENSITIVE).matcher(condition).find()) {
+                return Collections.emptyList();
+            }
+            Matcher predicate = Pattern.compile("\\b" + alias + "\\.(\\w+)\\s*(<>|!=|>=|<=|=|>|<|\\bin\\b|\\blike\\b|\\bbetween\\b)",
+                    Pattern.CASE_INSENSITIVE).matcher(condition);
+            while (predicate.find()) {
+                String operator = predicate.group(2).toLowerCase(Locale.ROOT);
+                if (operator.equals("=") || operator.equals("in")) {
+                    equality.add(predicate.group(1));
+                } else if (!operator.equals("<>") && !operator.equals("!=")) {
+                    range.add(predicate.group(1));
+                }
+            }
+        }
+        List<String> sort = new ArrayList<>();
+        Matcher orderBy = ORDER_BY.matcher(jpql);
+        if (orderBy.find()) {
+            Matcher property = Pattern.compile("\\b" + alias + "\\.(\\w+)").matcher(orderBy.group(1));
+            while (property.find()) {
+                sort.add(property.group(1));
+            }
+        }
+        return toColumns(equality, sort, range, persister);
+    }
+
+    private List<String> toColumns(List<String> equality, List<String> sort, List<String> range, AbstractEntityPersister persister) {
+        Set<String> properties = new LinkedHashSet<>(equality);
+        properties.addAll(sort);
+        if (!range.isEmpty()) {
+            properties.add(range.get(0)); // 범위 조건 뒤의 컬럼은 인덱스로 좁힐 수 없다.
+        }
+        List<String> columns = new ArrayList<>();
+        for (String property : properties) {
+            String[] names = columnNames(property, persister);
+            if (names == null) {
+                break; // 컬럼을 모르면 여기까지만 - 뒤 컬럼은 앞 컬럼이 있어야 의미가 있다.
+            }
+            columns.addAll(Arrays.asList(names));
+        }
+        // pk 로 시작하면 pk 인덱스로 충분하다.
+        if (!columns.isEmpty() && columns.get(0).equalsIgnoreCase(persister.getIdentifierColumnNames()[0])) {
+            return Collections.emptyList();
+        }
+        return columns;
+    }
+
+    private static String[] columnNames(String property, AbstractEntityPersister persister) {
+        if (property.equals(persister.getIdentifierPropertyName())) {
+            return persister.getIdentifierColumnNames();
+        }
+        try {
+            return persister.getPropertyColumnNames(property);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // 인덱스 이름 -> 컬럼 (순서대로)
+    private List<List<String>> existingIndexes(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<List<List<String>>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+                    : metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+            Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (indexName != null && column != null) {
+                        indexes.computeIfAbsent(indexName, key -> new TreeMap<>()).put(rs.getShort("ORDINAL_POSITION"), column);
+                    }
+                }
+            }
+            return indexes.values().stream().map(columns -> new ArrayList<>(columns.values())).collect(Collectors.toList());
+        });
+    }
+
+    private static boolean isCovered(List<String> columns, List<List<String>> indexes) {
+        return indexes.stream().anyMatch(index -> startsWith(index, columns));
+    }
+
+    private static boolean startsWith(List<String> index, List<String> columns) {
+        if (index.size() < columns.size()) {
+            return false;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (!index.get(i).equalsIgnoreCase(columns.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 지금 실행 계획 (인덱스가 없으면 전체 스캔) - explain 을 지원하지 않으면 생략
+    private String explain(Recommendation recommendation) {
+        String where = recommendation.getColumns().stream().map(column -> column + " = ?").collect(Collectors.joining(" and "));
+        Object[] nulls = new Object[recommendation.getColumns().size()];
+        try {
+            return String.join("\n", jdbcTemplate.query("explain select * from " + recommendation.getTable() + " where " + where,
+                    (rs, rowNum) -> rs.getString(1), nulls));
+        } catch (DataAccessException e) {
+            return "(explain not available: " + e.getMostSpecificCause().getMessage() + ")";
+        }
+    }
+
+    @Getter
+    public static class Recommendation {
+
+        private final String table;
+        private final List<String> columns;
+        private final Set<String> methods = new LinkedHashSet<>();
+
+        Recommendation(String table, List<String> columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        public String ddl() {
+            String name = ("ix_" + table + "_" + String.join("_", columns)).toLowerCase(Locale.ROOT);
+            if (name.length() > MAX_INDEX_NAME_LENGTH) {
+                name = name.substring(0, MAX_INDEX_NAME_LENGTH);
+            }
+            return "create index " + name + " on " + table + " (" + String.join(", ", columns) + ")";
+        }
+
+        @Override
+        public String toString() {
+            return table + columns + " " + methods;
+        }
+    }
+}
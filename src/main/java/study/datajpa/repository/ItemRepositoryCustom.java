@@ -0,0 +1,15 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    // merge 의 select 없이 jdbc batch insert - 이미 있는 id 면 DuplicateKeyException
+    int insertAll(Collection<Item> items);
+
+    // 없는 id 만 insert 하고 이미 있는 행은 그대로 둔다. (update 하지 않음) -> insert 된 건수
+    // db 의 merge / on conflict do nothing 을 쓰고, 지원하지 않는 db 는 있는 id 를 먼저 조회한다.
+    int insertIgnoreAll(Collection<Item> items);
+}
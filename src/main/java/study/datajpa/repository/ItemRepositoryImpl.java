@@ -0,0 +1,117 @@
+package study.datajpa.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.TransactionScopedAuditing;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Item 은 id 를 직접 넣으므로 save() 가 isNew() 가 아니면 merge -> select 후 insert 한다.
+ * 대량 저장은 jdbc batch 로 바로 insert 한다. (영속성 컨텍스트를 거치지 않는다)
+ */
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "insert into item (id, created_date) values (?, ?)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionScopedAuditing auditing;
+
+    public ItemRepositoryImpl(EntityManager em, JdbcTemplate jdbcTemplate, TransactionScopedAuditing auditing) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditing = auditing;
+    }
+
+    @Override
+    @Transactional
+    public int insertAll(Collection<Item> items) {
+        return batchUpdate(INSERT_SQL, items);
+    }
+
+    @Override
+    @Transactional
+    public int insertIgnoreAll(Collection<Item> items) {
+        String sql = insertIgnoreSql();
+        if (sql != null) {
+            return batchUpdate(sql, items);
+        }
+        int rows = batchUpdate(INSERT_SQL, missing(items));
+        LocalDateTime now = auditing.now();
+        items.forEach(item -> item.markCreated(now)); // 이미 있던 행도 isNew() = false
+        return rows;
+    }
+
+    private int batchUpdate(String sql, Collection<Item> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        // 영속성 컨텍스트에 쌓인 insert 가 먼저 나가야 중복 키를 db 가 확인할 수 있다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+        LocalDateTime now = auditing.now(); // @CreatedDate 와 같은 시간
+        int[][] counts = jdbcTemplate.batchUpdate(sql, items, BATCH_SIZE, (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(item.getCreatedDate() != null ? item.getCreatedDate() : now));
+        });
+        items.forEach(item -> item.markCreated(now)); // 이미 있던 행이어도 isNew() = false
+        int rows = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                rows += Math.max(count, 0); // SUCCESS_NO_INFO(-2) 는 건수를 알 수 없다.
+            }
+        }
+        return rows;
+    }
+
+    // 이미 있는 행은 건너뛴다 - 건너뛴 행의 update count 는 0. 전용 문법이 없는 db 면 null
+    private String insertIgnoreSql() {
+        Dialect dialect = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        if (dialect instanceof H2Dialect) {
+            return "merge into item t using (values (cast(? as varchar), cast(? as timestamp))) s (id, created_date)" +
+                    " on t.id = s.id" +
+                    " when not matched then insert (id, created_date) values (s.id, s.created_date)";
+        } else if (dialect instanceof PostgreSQL81Dialect) {
+            return INSERT_SQL + " on conflict (id) do nothing";
+        } else if (dialect instanceof MySQLDialect) {
+            return INSERT_SQL + " on duplicate key update id = id";
+        }
+        return null;
+    }
+
+    /**
+     * 전용 문법이 없는 db - 있는 id 를 BATCH_SIZE 개씩 IN 절로 조회하고 없는 것만 남긴다. (입력 안의 중복 id 도 하나만)
+     * 조회와 insert 사이에 다른 트랜잭션이 같은 id 를 넣으면 DuplicateKeyException 이 날 수 있다.
+     */
+    private Collection<Item> missing(Collection<Item> items) {
+        Map<String, Item> missing = new LinkedHashMap<>();
+        items.forEach(item -> missing.putIfAbsent(item.getId(), item));
+        List<String> ids = new ArrayList<>(missing.keySet());
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            em.createQuery("select i.id from Item i where i.id in :ids", String.class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())))
+                    .getResultList()
+                    .forEach(missing::remove);
+        }
+        return missing.values();
+    }
+}
@@ -0,0 +1,112 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * bulkAgePlus 를 update 한번이 아니라 id 범위 파티션으로 나눠서 실행한다.
+ * 파티션마다 짧은 트랜잭션으로 커밋하므로 락을 오래 잡지 않고 undo 로그도 파티션 크기만큼만 쌓인다.
+ */
+@Slf4j
+@Component
+public class MemberBulkUpdateExecutor {
+
+    private final EntityManager em;
+    private final TransactionTemplate partitionTransaction;
+    private final Executor executor;
+
+    public MemberBulkUpdateExecutor(EntityManager em, PlatformTransactionManager transactionManager,
+                                    @Qualifier("repositoryExecutor") Executor repositoryExecutor) {
+        this.em = em;
+        this.partitionTransaction = new TransactionTemplate(transactionManager);
+        this.partitionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = repositoryExecutor;
+    }
+
+    public BulkUpdateJob bulkAgePlus(int age, int partitionSize, int parallelism) {
+        return execute(plan(age, partitionSize), parallelism);
+    }
+
+    // 대상 행의 id 범위를 partitionSize 씩 나눈다.
+    public BulkUpdateJob plan(int age, int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("partitionSize must be positive: " + partitionSize);
+        }
+        Object[] range = (Object[]) em.createQuery("select min(m.id), max(m.id) from Member m where m.age >= :age")
+                .setParameter("age", age)
+                .getSingleResult();
+
+        List<BulkUpdateJob.Partition> partitions = new ArrayList<>();
+        if (range[0] != null) {
+            long minId = (Long) range[0];
+            long maxId = (Long) range[1];
+            for (long from = minId; from <= maxId; from += partitionSize) {
+                partitions.add(new BulkUpdateJob.Partition(from, Math.min(from + partitionSize - 1, maxId)));
+            }
+        }
+        return new BulkUpdateJob(age, partitions);
+    }
+
+    /**
+     * 끝나지 않은 파티션을 최대 parallelism 개씩 동시에 실행한다. 실패한 job 을 다시 넘기면 이어서 실행한다.
+     * 파티션은 각자 커밋되므로 트랜잭션 안에서 호출하면 안된다. (호출한 쪽의 락을 파티션이 기다리게 된다)
+     */
+    public BulkUpdateJob execute(BulkUpdateJob job, int parallelism) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("partitioned bulk update must not run inside a transaction");
+        }
+        job.restart();
+        Queue<BulkUpdateJob.Partition> remaining = new ConcurrentLinkedQueue<>(job.getRemainingPartitions());
+        int workers = Math.max(1, Math.min(parallelism, remaining.size()));
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(CompletableFuture.runAsync(() -> drain(job, remaining), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw new BulkUpdateFailedException(job, e.getCause());
+        } finally {
+            // @Modifying(clearAutomatically = true) 와 같이 영속성 컨텍스트를 비워서 변경 전 엔티티를 다시 읽지 않게 한다.
+            em.clear();
+        }
+        return job;
+    }
+
+    private void drain(BulkUpdateJob job, Queue<BulkUpdateJob.Partition> remaining) {
+        BulkUpdateJob.Partition partition;
+        while (!job.isFailed() && (partition = remaining.poll()) != null) {
+            BulkUpdateJob.Partition current = partition;
+            try {
+                Integer rows = partitionTransaction.execute(status -> em.createQuery(
+                        "update Member m set m.age = m.age + 1, m.version = m.version + 1" +
+                                " where m.age >= :age and m.id between :fromId and :toId")
+                        .setParameter("age", job.getAge())
+                        .setParameter("fromId", current.fromId)
+                        .setParameter("toId", current.toId)
+                        .executeUpdate());
+                job.completed(current, rows);
+                log.info("bulk update partition {} : {} rows ({}/{})",
+                        current, rows, job.getCompletedPartitions(), job.getTotalPartitions());
+            } catch (RuntimeException e) {
+                job.failed(e);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징의 위치 - (username, member_id) 로 정렬된 마지막 행을 가리킨다.
+ * 클라이언트에게는 encode() 한 불투명(opaque) 토큰으로만 노출한다.
+ * username 이 null 인 행은 비교가 되지 않으므로 keyset 페이징 대상은 username 이 있어야 한다.
+ */
+@Getter
+public class MemberCursor {
+
+    private final String username;
+    private final long id;
+
+    public MemberCursor(String username, long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    public String encode() {
+        String raw = id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':'); // id 에는 ':' 가 없으므로 첫번째 구분자로 자른다.
+            return new MemberCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("invalid cursor: " + token, e);
+        }
+    }
+}
@@ -19,6 +19,13 @@ public class MemberJpaRepository {
         return member;
     }
 
+    // 대량 저장 전용 - 영속성 컨텍스트가 1000개 이상이면 flush + clear 한다.
+    // clear 되면 호출한 쪽이 가지고 있던 엔티티도 준영속이 되므로 저장한 엔티티를 반환하지 않는다.
+    @AutoFlushClear(threshold = 1000)
+    public void saveInBulk(Member member) {
+        em.persist(member);
+    }
+
     public void delete(Member member) {
         em.remove(member);
     }
@@ -65,7 +72,7 @@ public class MemberJpaRepository {
     }
 
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
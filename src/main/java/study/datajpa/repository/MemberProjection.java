@@ -4,5 +4,5 @@ public interface MemberProjection {
 
     Long getId();
     String getUsername();
-    String getTeamname();
+    String getTeamName(); // native 쿼리 별칭 teamName 과 같아야 한다.
 }
@@ -0,0 +1,24 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.Repository;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.Optional;
+
+// 화면 조회용 - 변경이 필요하면 MemberRepository 를 사용한다.
+@ReadOnlyRepository
+public interface MemberReadOnlyRepository extends Repository<Member, Long> {
+
+    Optional<Member> findById(Long id);
+
+    List<Member> findAll();
+
+    Page<Member> findAll(Pageable pageable);
+
+    List<Member> findByUsername(String username);
+
+    Page<Member> findByAge(int age, Pageable pageable);
+}
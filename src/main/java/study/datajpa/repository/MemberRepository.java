@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
@@ -13,6 +14,7 @@ import javax.persistence.QueryHint;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
@@ -22,6 +24,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findTop3HelloBy();
 
     // @Query(name = "Member.findByUsername")
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true")) // 쿼리 캐시
     List<Member> findByUsername(@Param("username") String username);
 
     // 이름이 없는 Named 쿼리
@@ -40,17 +43,20 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findByNames(@Param("names") Collection<String> names);
 
     List<Member> findListByUsername(String username);
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Member findMemberByUsername(String username);
     Optional<Member> findOptionalByUsername(String username);
 
     //@Query(value = "select m from Member m left join m.team t",
     //        countQuery = "select count(m.username) from Member m") // count query 분리 , where 조건이 없거나 left join 만
-    Page<Member> findByAge(int age, Pageable pageable);
+    Page<Member> findByAge(int age, Pageable pageable); // 구현은 MemberRepositoryImpl (count 는 PageCounts)
     // Slice<Member> findByAge(int age, Pageable pageable);
 
+    // 벌크 연산은 영속성 컨텍스트를 무시하지만 hibernate 가 member 테이블의 2차 캐시 / 쿼리 캐시는 무효화한다.
+    // version 은 자동으로 올라가지 않으므로 직접 올린다. -> 벌크 연산 전에 읽은 엔티티의 update 는 충돌로 실패한다.
     // @Modifying // update 시 반드시 필요하다.
     @Modifying(clearAutomatically = true) // update 시 반드시 필요하다.
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     // 패치조인을하면 연관된 쿼리를 다 실행한다.
@@ -76,6 +82,13 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Member findLockByUsername(String username);
 
+    // 비동기 조회 : repositoryExecutor 스레드에서 새 트랜잭션으로 실행된다. (호출한 쪽의 트랜잭션/영속성 컨텍스트와 무관)
+    // 메소드 이름으로 쿼리를 만들면 Async 가 프로퍼티로 해석되므로 @Query 로 지정한다.
+    @Async("repositoryExecutor")
+    @Query("select m from Member m where m.username = :username")
+    CompletableFuture<List<Member>> findByUsernameAsync(@Param("username") String username);
+
+    // open 프로젝션 - 구현은 MemberRepositoryImpl (엔티티 전체가 아니라 @Value 가 참조하는 컬럼만 조회)
     List<UsernameOnly> findProductionsByUsername(@Param("username") String username);
 
     // DTO PROJECTION
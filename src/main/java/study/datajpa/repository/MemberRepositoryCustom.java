@@ -1,10 +1,56 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
 
+    // keyset 페이징 : (username, member_id) 순으로 after 다음부터 limit 개 (after 가 null 이면 처음부터)
+    CursorWindow<Member> findByAgeAfter(int age, MemberCursor after, int limit);
+
+    CursorWindow<Member> findAllAfter(MemberCursor after, int limit);
+
+    // 대량 저장 : batchSize 마다 flush + clear (jdbc batch insert), 호출한 쪽의 영속성 컨텍스트도 비워진다.
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    // 전체 회원을 커서로 한건씩 읽는다. 트랜잭션 안에서 사용하고 반드시 close (try-with-resources) 해야 한다.
+    Stream<MemberDto> streamAllMembers();
+
+    // 쿼리 메소드와 같은 조회지만 count 는 @PageCount / repository.page-count.mode 를 따른다. (MemberRepository 의 선언을 대신한다)
+    Page<Member> findByAge(int age, Pageable pageable);
+
+    // 엔티티를 로딩하지 않고 dto 로 바로 조회 (select new) - 정렬은 findAll(pageable) 과 같은 엔티티 경로 + dto 프로퍼티 이름 (teamName)
+    // totalCount 는 10초간 재사용한다. (CountMode.CACHED)
+    @PageCount(CountMode.CACHED)
+    Page<MemberDto> findAllDto(Pageable pageable);
+
+    // content 와 count 쿼리를 repositoryExecutor 에서 동시에 실행한다. 트랜잭션 밖에서 쓰이므로 dto 로 반환한다. (findAllDto 와 같은 조회)
+    CompletableFuture<Page<MemberDto>> findAllAsync(Pageable pageable);
+
+    // 낙관적 락 충돌시 다시 읽어서 update 를 재시도한다. 트랜잭션 밖에서 호출하고, 반환된 회원은 준영속 상태이다.
+    Member updateWithRetry(Long id, Consumer<Member> update);
+
+    // id 배열로 조회 - IN 절은 일정 크기로 나눠서 실행하고 결과는 id -> 회원 map (없는 id 는 빠진다)
+    LongObjectMap<Member> findAllByIds(long[] ids);
+
+    // ids 가 모두 있으면 true (중복된 id 는 한번만 센다)
+    boolean existsAll(long[] ids);
+
+    // (중첩) close 프로젝션을 필요한 컬럼만 select 하는 쿼리 한번으로 조회 - 연관관계는 left join (ProjectionSelect 참고)
+    // open 프로젝션은 @Value 가 참조하는 target 프로퍼티만 조회한다. (컬럼을 정할 수 없으면 엔티티로 조회)
+    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+
+    // open 프로젝션 UsernameOnly 를 username, age 만 조회해서 만든다. (MemberRepository 의 쿼리 메소드를 대신한다)
+    List<UsernameOnly> findProductionsByUsername(String username);
+
+    // native sql 로 dto 페이지 조회 - 정렬은 findAllDto 와 같다. 실행 전에 member, team 변경 내용을 flush 한다.
+    Page<MemberDto> findMemberDtoNative(Pageable pageable);
 }
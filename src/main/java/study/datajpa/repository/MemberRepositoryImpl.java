@@ -1,19 +1,333 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
-@RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // IN 절 파라미터 개수 상한 - 개수마다 sql 이 달라지므로 상한을 두어 쿼리 플랜 수를 제한한다.
+    private static final int IN_CHUNK_SIZE = 512;
+
+    // 테이블 별칭은 memberDtoSelect 의 jpql 과 같다. (정렬 컬럼을 같은 규칙으로 만든다)
+    private static final String MEMBER_DTO_FROM = " from member m left join team team on m.team_id = team.team_id";
+    private static final String MEMBER_DTO_SQL = "select m.member_id as id, m.username as username, team.name as teamName" + MEMBER_DTO_FROM;
+
     private final EntityManager em;
+    private final PageCounts pageCounts;
+    private final OptimisticUpdateExecutor optimisticUpdateExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor executor;
+    private final CompiledProjectionFactory projectionFactory;
+    private final Map<Class<?>, Optional<ProjectionSelect>> projectionSelects = new ConcurrentHashMap<>(); // empty - 엔티티로 조회
+    private final JdbcTemplate jdbcTemplate;
+    private final ConstructorRowMapper<MemberDto> memberDtoMapper = new ConstructorRowMapper<>(MemberDto.class);
+    private final DtoSelect memberDtoSelect;
+
+    public MemberRepositoryImpl(EntityManager em, PlatformTransactionManager transactionManager,
+                                @Qualifier("repositoryExecutor") Executor repositoryExecutor,
+                                OptimisticUpdateExecutor optimisticUpdateExecutor, JdbcTemplate jdbcTemplate,
+                                PageCounts pageCounts, CompiledProjectionFactory projectionFactory) {
+        this.em = em;
+        this.pageCounts = pageCounts;
+        this.projectionFactory = projectionFactory;
+        this.optimisticUpdateExecutor = optimisticUpdateExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = repositoryExecutor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberDtoSelect = new DtoSelect(em.getMetamodel(), Member.class, MemberDto.class, "m");
+    }
+
+    // native 쿼리 별칭이 dto 생성자와 맞는지 시작할 때 확인한다. (실행하지 않고 메타데이터만 조회)
+    @PostConstruct
+    public void checkNativeQueries() {
+        jdbcTemplate.execute(MEMBER_DTO_SQL, (PreparedStatementCallback<Void>) ps -> {
+            memberDtoMapper.check(MEMBER_DTO_SQL, ps.getMetaData());
+            return null;
+        });
+    }
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public CursorWindow<Member> findByAgeAfter(int age, MemberCursor after, int limit) {
+        TypedQuery<Member> query = em.createQuery(
+                "select m from Member m where m.age > :age" + seekCondition(after, " and ") + " order by m.username asc, m.id asc",
+                Member.class)
+                .setParameter("age", age);
+        return seek(query, after, limit);
+    }
+
+    @Override
+    public CursorWindow<Member> findAllAfter(MemberCursor after, int limit) {
+        TypedQuery<Member> query = em.createQuery(
+                "select m from Member m" + seekCondition(after, " where ") + " order by m.username asc, m.id asc",
+                Member.class);
+        return seek(query, after, limit);
+    }
+
+    // offset 대신 마지막 행의 (username, id) 보다 큰 행부터 읽는다. -> 몇번째 페이지든 인덱스 탐색 비용이 같다.
+    private String seekCondition(MemberCursor after, String conjunction) {
+        if (after == null) {
+            return "";
+        }
+        return conjunction + "(m.username > :username or (m.username = :username and m.id > :id))";
+    }
+
+    private CursorWindow<Member> seek(TypedQuery<Member> query, MemberCursor after, int limit) {
+        Assert.isTrue(limit > 0, "limit must be positive: " + limit);
+        if (after != null) {
+            query.setParameter("username", after.getUsername())
+                    .setParameter("id", after.getId());
+        }
+        // limit + 1 개를 조회해서 다음 페이지가 있는지 판단한다. (count 쿼리 없음, Slice 와 같은 방식)
+        List<Member> result = query.setMaxResults(limit + 1).getResultList();
+        if (result.size() <= limit) {
+            return new CursorWindow<>(result, null);
+        }
+        List<Member> content = result.subList(0, limit);
+        return new CursorWindow<>(content, MemberCursor.of(content.get(limit - 1)).encode());
+    }
+
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        int count = 0;
+        for (Member member : members) {
+            em.persist(member);
+            // hibernate.jdbc.batch_size 단위로 insert 를 모아서 보내고,
+            // 영속성 컨텍스트를 비워서 1차캐시가 끝없이 커지지 않게 한다.
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    @Override
+    public Stream<MemberDto> streamAllMembers() {
+        // getResultList() 는 전체를 힙에 올리지만, getResultStream() 은 forward-only 커서(ScrollableResults)로 읽는다.
+        // 엔티티가 아니라 dto 로 바로 조회하므로 영속성 컨텍스트에 쌓이는 것이 없어서 clear 할 필요도 없다.
+        return em.createQuery(
+                "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t order by m.id", MemberDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE) // 한번에 driver 로 가져올 행 수
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        // 쿼리 메소드 findByAge 와 같은 조회 - count 를 PageCounts 로 구하기 위해 직접 구현한다. (@PageCount)
+        for (Sort.Order order : pageable.getSort()) {
+            PropertyPath.from(order.getProperty(), Member.class); // 없는 프로퍼티면 PropertyReferenceException
+        }
+        LongSupplier total = pageCounts.count("select count(m) from Member m where m.age = :age", Map.of("age", age), null);
+        TypedQuery<Member> query = em.createQuery(
+                        QueryUtils.applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m"), Member.class)
+                .setParameter("age", age);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        // 첫 페이지인데 size 보다 적게 나오거나 마지막 페이지면 total 을 호출하지 않는다.
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, total);
+    }
+
+    @Override
+    public Page<MemberDto> findAllDto(Pageable pageable) {
+        LongSupplier total = pageCounts.count("select count(m) from Member m", Collections.emptyMap(), "member");
+        return PageableExecutionUtils.getPage(findMemberDtos(memberDtoSelect.query(pageable.getSort()), pageable), pageable, total);
+    }
+
+    private List<MemberDto> findMemberDtos(String jpql, Pageable pageable) {
+        TypedQuery<MemberDto> query = em.createQuery(jpql, MemberDto.class);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public CompletableFuture<Page<MemberDto>> findAllAsync(Pageable pageable) {
+        // 스레드마다 다른 트랜잭션(커넥션)이므로 두 쿼리가 동시에 실행된다.
+        // 트랜잭션이 끝난 뒤에는 지연로딩을 할 수 없으므로 엔티티가 아니라 dto 로 조회해서 넘긴다.
+        // 정렬 검증은 호출한 스레드에서 한다. (잘못된 정렬은 future 가 아니라 바로 예외)
+        String jpql = memberDtoSelect.query(pageable.getSort());
+        CompletableFuture<List<MemberDto>> content = CompletableFuture.supplyAsync(
+                () -> readOnlyTransaction.execute(status -> findMemberDtos(jpql, pageable)), executor);
+        CompletableFuture<Long> total = CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status ->
+                em.createQuery("select count(m) from Member m", Long.class).getSingleResult()), executor);
+        return content.thenCombine(total, (members, count) -> new PageImpl<>(members, pageable, count));
+    }
+
+    @Override
+    public Member updateWithRetry(Long id, Consumer<Member> update) {
+        return optimisticUpdateExecutor.execute(Member.class, () -> {
+            Member member = em.find(Member.class, id);
+            if (member == null) {
+                throw new EmptyResultDataAccessException("No Member entity with id " + id + " exists!", 1);
+            }
+            update.accept(member); // 커밋할 때 update ... where version = ?
+            return member;
+        });
+    }
+
+    @Override
+    public LongObjectMap<Member> findAllByIds(long[] ids) {
+        long[] distinct = distinctSorted(ids);
+        LongObjectMap<Member> result = new LongObjectMap<>(distinct.length);
+        for (int from = 0; from < distinct.length; from += IN_CHUNK_SIZE) {
+            List<Member> members = em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                    .setParameter("ids", chunk(distinct, from))
+                    .getResultList();
+            for (Member member : members) {
+                result.put(member.getId(), member);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean existsAll(long[] ids) {
+        long[] distinct = distinctSorted(ids);
+        for (int from = 0; from < distinct.length; from += IN_CHUNK_SIZE) {
+            List<Long> chunk = chunk(distinct, from);
+            long found = em.createQuery("select count(m) from Member m where m.id in :ids", Long.class)
+                    .setParameter("ids", chunk)
+                    .getSingleResult();
+            if (found < chunk.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        Optional<ProjectionSelect> projection = projectionSelects.computeIfAbsent(type,
+                projectionType -> ProjectionSelect.of(projectionFactory, em.getMetamodel().entity(Member.class), projectionType, "m"));
+        if (projection.isEmpty()) {
+            List<Member> members = em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", username)
+                    .getResultList();
+            List<T> result = new ArrayList<>(members.size());
+            for (Member member : members) {
+                result.add(projectionFactory.createProjection(type, member));
+            }
+            return result;
+        }
+        List<Tuple> tuples = em.createQuery(projection.get().from("Member") + " where m.username = :username", Tuple.class)
+                .setParameter("username", username)
+                .getResultList();
+        List<T> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            result.add(projectionFactory.createProjection(type, projection.get().toMap(tuple)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<UsernameOnly> findProductionsByUsername(String username) {
+        return findProjectionsByUsername(username, UsernameOnly.class);
+    }
+
+    @Override
+    public Page<MemberDto> findMemberDtoNative(Pageable pageable) {
+        // 정렬은 findAllDto 와 같은 검증을 거쳐 컬럼으로 바뀐다. (sql 에 요청 문자열을 그대로 붙이지 않는다)
+        String orderBy = memberDtoSelect.orderBy(pageable.getSort(), em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class));
+        Query query = nativeQuery(MEMBER_DTO_SQL + orderBy);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()) // limit / offset 은 dialect 가 만든다.
+                    .setMaxResults(pageable.getPageSize());
+        }
+        List<?> rows = query.getResultList();
+        List<MemberDto> content = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            content.add(memberDtoMapper.map((Object[]) row));
+        }
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> ((Number) nativeQuery("select count(*)" + MEMBER_DTO_FROM).getSingleResult()).longValue());
+    }
+
+    // jdbc 가 아니라 영속성 컨텍스트를 통해 실행한다. -> 실행 전에 member, team 의 변경 내용을 flush 한다. (auto flush)
+    private Query nativeQuery(String sql) {
+        Query query = em.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Member.class)
+                .addSynchronizedEntityClass(Team.class);
+        return query;
+    }
+
+    // jdbc 파라미터 바인딩은 Object 이므로 박싱은 IN 절 하나 크기만큼만 한다.
+    private static List<Long> chunk(long[] ids, int from) {
+        int to = Math.min(from + IN_CHUNK_SIZE, ids.length);
+        List<Long> chunk = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            chunk.add(ids[i]);
+        }
+        return chunk;
+    }
+
+    // 중복을 제거하고 정렬한 사본 - 같은 id 가 IN 절에 여러번 들어가지 않게 한다.
+    private static long[] distinctSorted(long[] ids) {
+        long[] sorted = Arrays.copyOf(ids, ids.length);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
 }
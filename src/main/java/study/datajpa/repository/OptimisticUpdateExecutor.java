@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌이 나면 새 트랜잭션에서 다시 읽고 변경한다. (findLockByUsername 의 select for update 대신 사용)
+ * 재시도 간격은 지수 백오프 + jitter - 충돌한 writer 들이 같은 시점에 다시 부딪히지 않게 한다.
+ *
+ * repository.optimistic.attempts{entity, outcome=success|conflict} 로 충돌률을 볼 수 있다.
+ */
+@Slf4j
+@Component
+public class OptimisticUpdateExecutor {
+
+    private final TransactionTemplate attemptTransaction;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticUpdateExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                    @Value("${repository.optimistic.max-attempts:5}") int maxAttempts,
+                                    @Value("${repository.optimistic.initial-backoff:5ms}") Duration initialBackoff,
+                                    @Value("${repository.optimistic.max-backoff:200ms}") Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.attemptTransaction = new TransactionTemplate(transactionManager);
+        this.attemptTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    /**
+     * work 를 시도마다 새 트랜잭션으로 실행한다. work 는 엔티티를 다시 조회해서 변경해야 한다. (이전 시도의 엔티티는 사용 불가)
+     * 트랜잭션 안에서 호출하면 안된다. 바깥 트랜잭션이 먼저 flush 한 행이면 그 락을 자기 자신이 기다리게 된다.
+     */
+    public <T> T execute(Class<?> entityType, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("optimistic retry must not run inside a transaction");
+        }
+        String entity = entityType.getSimpleName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = attemptTransaction.execute(status -> work.get());
+                count(entity, "success");
+                return result;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                count(entity, "conflict");
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("repository.optimistic.exhausted", "entity", entity).increment();
+                    log.warn("{} optimistic update gave up after {} attempts", entity, attempt);
+                    throw e;
+                }
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    // full jitter : 0 ~ min(max, initial * 2^(attempt-1)) 사이에서 랜덤하게 기다린다.
+    private void backoff(int attempt, RuntimeException conflict) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private void count(String entity, String outcome) {
+        meterRegistry.counter("repository.optimistic.attempts", "entity", entity, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Page 를 반환하는 레파지토리 메소드의 totalCount 계산 방법. (PageCountPostProcessor)
+ * 없으면 repository.page-count.mode (기본 EXACT) 를 쓴다.
+ *
+ * count 를 PageCounts 로 구하는 메소드(MemberRepositoryImpl - findByAge, findAllDto)에만 붙일 수 있다.
+ * 쿼리 메소드 / @Query 의 count 는 spring data 가 직접 실행하므로 붙이면 레파지토리를 만들 때 예외가 난다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PageCount {
+
+    CountMode value();
+}
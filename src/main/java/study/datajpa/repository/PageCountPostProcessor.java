@@ -0,0 +1,84 @@
+package study.datajpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Page 를 반환하는 레파지토리 메소드가 실행되는 동안 CountMode 를 정한다. (@PageCount, 없으면 repository.page-count.mode)
+ * 메소드 파라미터로 넘기지 않고 PageCounts 가 현재 스레드에서 읽는다.
+ *
+ * count 를 PageCounts 로 구하는 커스텀 구현(MemberRepositoryImpl) 메소드에만 효과가 있다.
+ * 쿼리 메소드 / @Query 에 @PageCount 를 붙이면 무시되지 않도록 레파지토리를 만들 때 예외를 던진다.
+ */
+@Component
+public class PageCountPostProcessor implements BeanPostProcessor {
+
+    private final CountMode defaultMode;
+
+    public PageCountPostProcessor(@Value("${repository.page-count.mode:EXACT}") CountMode defaultMode) {
+        this.defaultMode = defaultMode;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                        check(repositoryInformation);
+                        proxyFactory.addAdvice(countMode(repositoryInformation.getRepositoryInterface()));
+                    }));
+        }
+        return bean;
+    }
+
+    private static void check(RepositoryInformation repositoryInformation) {
+        for (Method method : repositoryInformation.getRepositoryInterface().getMethods()) {
+            if (!AnnotatedElementUtils.hasAnnotation(method, PageCount.class)) {
+                continue;
+            }
+            if (!Page.class.isAssignableFrom(method.getReturnType()) || !repositoryInformation.isCustomMethod(method)) {
+                throw new IllegalStateException("@PageCount is only supported on Page methods of a custom implementation"
+                        + " that counts with PageCounts: " + method);
+            }
+        }
+    }
+
+    private MethodInterceptor countMode(Class<?> repositoryInterface) {
+        Map<Method, CountMode> modes = new ConcurrentHashMap<>();
+        return invocation -> {
+            Method method = invocation.getMethod();
+            if (!Page.class.isAssignableFrom(method.getReturnType())) {
+                return invocation.proceed();
+            }
+            CountMode mode = modes.computeIfAbsent(method, m -> {
+                PageCount pageCount = AnnotatedElementUtils.findMergedAnnotation(declared(repositoryInterface, m), PageCount.class);
+                return pageCount == null ? defaultMode : pageCount.value();
+            });
+            CountMode previous = PageCounts.setMode(mode);
+            try {
+                return invocation.proceed();
+            } finally {
+                PageCounts.setMode(previous);
+            }
+        };
+    }
+
+    // 레파지토리 인터페이스에 다시 선언한 메소드가 있으면 그 메소드의 @PageCount 를 쓴다.
+    private static Method declared(Class<?> repositoryInterface, Method method) {
+        try {
+            return repositoryInterface.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            return method;
+        }
+    }
+}
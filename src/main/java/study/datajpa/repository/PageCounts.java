@@ -0,0 +1,136 @@
+package study.datajpa.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * CountMode 에 따라 Page 의 totalCount 를 구한다. CountMode 는 레파지토리 메소드마다 정해진다. (PageCountPostProcessor)
+ * PageableExecutionUtils.getPage() 에 넘기면 count 가 필요 없는 페이지(첫/마지막)에서는 호출되지 않는다. (CONCURRENT 제외)
+ */
+@Component
+class PageCounts {
+
+    private static final long CACHE_TTL_MILLIS = 10_000;
+    private static final int CACHE_MAX_SIZE = 1_000;
+
+    // 현재 실행중인 레파지토리 메소드의 CountMode (없으면 EXACT)
+    private static final ThreadLocal<CountMode> MODE = new ThreadLocal<>();
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor executor;
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    PageCounts(EntityManager em, PlatformTransactionManager transactionManager,
+               @Qualifier("repositoryExecutor") Executor executor) {
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = executor;
+    }
+
+    // 이전 값을 반환한다. 메소드가 끝나면 이전 값으로 되돌려야 한다. (중첩 호출)
+    static CountMode setMode(CountMode mode) {
+        CountMode previous = MODE.get();
+        if (mode == null) {
+            MODE.remove();
+        } else {
+            MODE.set(mode);
+        }
+        return previous;
+    }
+
+    /**
+     * @param table 조건이 없는 전체 조회면 테이블 이름 (APPROXIMATE 용), 아니면 null
+     */
+    LongSupplier count(String countJpql, Map<String, Object> parameters, String table) {
+        CountMode countMode = MODE.get() == null ? CountMode.EXACT : MODE.get();
+        switch (countMode) {
+            case CACHED:
+                return () -> cachedCount(countJpql, parameters);
+            case APPROXIMATE:
+                return () -> {
+                    long estimate = table == null ? -1 : estimate(table);
+                    return estimate < 0 ? exactCount(countJpql, parameters) : estimate;
+                };
+            case CONCURRENT:
+                // content 조회 전에 먼저 시작한다. 다른 스레드는 다른 트랜잭션(커넥션)을 사용한다.
+                // content 를 보기 전이므로 count 가 필요 없는 페이지에서도 count 쿼리는 실행된다. (결과만 쓰지 않는다)
+                CompletableFuture<Long> future = CompletableFuture.supplyAsync(
+                        () -> readOnlyTransaction.execute(status -> exactCount(countJpql, parameters)), executor);
+                return future::join;
+            default:
+                return () -> exactCount(countJpql, parameters);
+        }
+    }
+
+    // CACHED 로 저장한 count 를 모두 버린다.
+    void clear() {
+        cache.clear();
+    }
+
+    private long exactCount(String countJpql, Map<String, Object> parameters) {
+        Query query = em.createQuery(countJpql);
+        parameters.forEach(query::setParameter);
+        return (Long) query.getSingleResult();
+    }
+
+    private long cachedCount(String countJpql, Map<String, Object> parameters) {
+        String key = countJpql + new TreeMap<>(parameters);
+        long now = System.currentTimeMillis();
+        CachedCount cached = cache.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+        if (cache.size() >= CACHE_MAX_SIZE) {
+            cache.clear();
+        }
+        long count = exactCount(countJpql, parameters);
+        cache.put(key, new CachedCount(count, now + CACHE_TTL_MILLIS));
+        return count;
+    }
+
+    // db 가 관리하는 테이블 통계 (지원하지 않는 db 면 -1)
+    private long estimate(String table) {
+        Dialect dialect = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        String sql;
+        if (dialect instanceof H2Dialect) {
+            sql = "select row_count_estimate from information_schema.tables" +
+                    " where table_schema = current_schema and table_name = upper(?1)";
+        } else if (dialect instanceof PostgreSQL81Dialect) {
+            sql = "select cast(reltuples as bigint) from pg_class where relname = lower(?1)";
+        } else {
+            return -1;
+        }
+        Object result = em.createNativeQuery(sql)
+                .setParameter(1, table)
+                .getSingleResult();
+        return ((Number) result).longValue();
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expiresAt;
+
+        private CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package study.datajpa.repository;
+
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+
+import javax.persistence.Tuple;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * (중첩) close 프로젝션 인터페이스를 select 절로 풀어서 쿼리 한번으로 조회한다.
+ * NestedClosedProjections 이면
+ *   select m.username as username, t1.name as team_name from Member m left join m.team t1
+ * 처럼 필요한 컬럼만 조회하고, 결과 tuple 을 중첩 Map ({username=.., team={name=..}}) 으로 묶어 프로젝션을 만든다.
+ * 연관관계가 없는 행(left join 결과가 모두 null)은 중첩 프로젝션이 null 이 된다.
+ *
+ * open projection 은 @Value 가 참조하는 target 프로퍼티만 조회한다. (UsernameOnly -> select m.username, m.age)
+ * target 자체 / 메소드 / 연관 엔티티를 참조하면 컬럼을 정할 수 없으므로 of() 가 empty 이고 엔티티로 조회해야 한다.
+ */
+class ProjectionSelect {
+
+    private final List<String> paths = new ArrayList<>();   // "username", "team.name"
+    private final List<String> joins = new ArrayList<>();   // "left join m.team t1"
+    private final StringBuilder select = new StringBuilder();
+    private final String rootAlias;
+
+    ProjectionSelect(ProjectionFactory factory, Class<?> projectionType, String rootAlias) {
+        this.rootAlias = rootAlias;
+        collect(factory, projectionType, rootAlias, "");
+    }
+
+    private ProjectionSelect(List<String> properties, String rootAlias) {
+        this.rootAlias = rootAlias;
+        for (String property : properties) {
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            select.append(rootAlias).append('.').append(property).append(" as ").append(property);
+            paths.add(property);
+        }
+    }
+
+    static Optional<ProjectionSelect> of(CompiledProjectionFactory factory, EntityType<?> entity, Class<?> projectionType, String rootAlias) {
+        if (factory.getProjectionInformation(projectionType).isClosed()) {
+            return Optional.of(new ProjectionSelect(factory, projectionType, rootAlias));
+        }
+        List<String> properties = factory.targetProperties(projectionType);
+        if (properties == null || properties.isEmpty() || !properties.stream().allMatch(property -> isBasic(entity, property))) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProjectionSelect(properties, rootAlias));
+    }
+
+    private static boolean isBasic(EntityType<?> entity, String property) {
+        try {
+            return entity.getAttribute(property).getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC;
+        } catch (IllegalArgumentException e) {
+            return false; // 엔티티 속성이 아니다.
+        }
+    }
+
+    private void collect(ProjectionFactory factory, Class<?> type, String alias, String prefix) {
+        ProjectionInformation information = factory.getProjectionInformation(type);
+        if (!information.isClosed()) {
+            throw new IllegalArgumentException("only closed projections are supported: " + type.getName());
+        }
+        for (PropertyDescriptor property : information.getInputProperties()) {
+            String path = prefix + property.getName();
+            if (CompiledProjectionFactory.isNestedProjection(property.getPropertyType())) {
+                String joinAlias = "t" + (joins.size() + 1);
+                joins.add("left join " + alias + "." + property.getName() + " " + joinAlias);
+                collect(factory, property.getPropertyType(), joinAlias, path + ".");
+                continue;
+            }
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            select.append(alias).append('.').append(property.getName()).append(" as ").append(path.replace('.', '_'));
+            paths.add(path);
+        }
+    }
+
+    // select ... from <entity> <rootAlias> left join ... 까지 (where 절은 호출하는 쪽에서 붙인다)
+    String from(String entityName) {
+        StringBuilder jpql = new StringBuilder("select ").append(select)
+                .append(" from ").append(entityName).append(' ').append(rootAlias);
+        for (String join : joins) {
+            jpql.append(' ').append(join);
+        }
+        return jpql.toString();
+    }
+
+    Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            Object value = tuple.get(i);
+            if (value != null || paths.get(i).indexOf('.') < 0) { // null 인 중첩 값은 넣지 않아서 연관관계가 없으면 null 이 된다.
+                put(root, paths.get(i), value);
+            }
+        }
+        return root;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> root, String path, Object value) {
+        Map<String, Object> map = root;
+        int start = 0;
+        for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', start)) {
+            map = (Map<String, Object>) map.computeIfAbsent(path.substring(start, dot), key -> new LinkedHashMap<>());
+            start = dot + 1;
+        }
+        map.put(path.substring(start), value);
+    }
+}
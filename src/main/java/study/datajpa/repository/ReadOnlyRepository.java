@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.*;
+
+/**
+ * 조회 전용 레파지토리 표시.
+ * - 읽기 전용 트랜잭션 : 플러시(변경감지)를 하지 않는다.
+ * - 로딩한 엔티티는 read-only : 변경감지용 스냅샷을 만들지 않는다.
+ *   (이미 열린 트랜잭션에 참여해도 이 레파지토리로 읽은 엔티티는 read-only 로 로딩된다)
+ * 조회한 엔티티를 변경해도 db 에 반영되지 않는다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadOnlyRepository {
+}
@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * @ReadOnlyRepository 레파지토리의 메소드가 실행되는 동안 세션의 기본값을 read-only 로 바꾼다.
+ * 읽기 전용 트랜잭션이면 스프링이 이미 처리하지만, 바깥의 읽기/쓰기 트랜잭션에 참여한 경우에도 스냅샷을 만들지 않게 한다.
+ */
+@Component
+public class ReadOnlyRepositoryPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ReadOnlyRepositoryPostProcessor(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                        if (AnnotatedElementUtils.hasAnnotation(repositoryInformation.getRepositoryInterface(), ReadOnlyRepository.class)) {
+                            proxyFactory.addAdvice(readOnlySession());
+                        }
+                    }));
+        }
+        return bean;
+    }
+
+    // 트랜잭션 인터셉터 다음에 실행되므로 트랜잭션의 엔티티 매니저가 있다.
+    private MethodInterceptor readOnlySession() {
+        return invocation -> {
+            EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory.getObject());
+            if (em == null) {
+                return invocation.proceed();
+            }
+            Session session = em.unwrap(Session.class);
+            boolean defaultReadOnly = session.isDefaultReadOnly();
+            session.setDefaultReadOnly(true);
+            try {
+                return invocation.proceed();
+            } finally {
+                session.setDefaultReadOnly(defaultReadOnly);
+            }
+        };
+    }
+}
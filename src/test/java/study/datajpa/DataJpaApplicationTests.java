@@ -1,13 +1,31 @@
 package study.datajpa;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 class DataJpaApplicationTests {
 
+	@Autowired
+	ApplicationContext context;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void applicationTaskExecutorIsNotRepositoryExecutor() {
+		// 일반 @Async / mvc 비동기 요청은 레파지토리 풀(커넥션 수 제한)을 쓰지 않는다.
+		Executor applicationTaskExecutor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, Executor.class);
+		assertThat(applicationTaskExecutor).isNotSameAs(context.getBean("repositoryExecutor"));
+		assertThat(context.getBean(Executor.class)).isSameAs(applicationTaskExecutor);
+	}
+
 }
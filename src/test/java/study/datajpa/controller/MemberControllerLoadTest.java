@@ -0,0 +1,129 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * /members/{id} 부하 테스트 - 기본(플랫폼 스레드 200개) vs virtual-threads 프로파일
+ * 클라이언트 1000개가 각자 응답을 받으면 다음 요청을 보낸다. (closed loop)
+ * 기본 test 에서는 제외되고 ./gradlew loadTest -PjavaVersion=21 로 실행한다.
+ */
+@Tag("load")
+class MemberControllerLoadTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int REQUESTS_PER_CLIENT = 20;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    public void platformVsVirtualThreads() {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads require Java 21");
+
+        Result platform = run("default");
+        Result virtual = run("virtual-threads");
+
+        System.out.println("platform threads : " + platform);
+        System.out.println("virtual threads  : " + virtual);
+        assertThat(platform.errors).isZero();
+        assertThat(virtual.errors).isZero();
+    }
+
+    private Result run(String profile) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DataJpaApplication.class).run(
+                "--spring.profiles.active=" + profile,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + profile + ";DB_CLOSE_DELAY=-1",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.p6spy.enable-logging=false")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long[] ids = context.getBean(MemberRepository.class).findAll().stream().mapToLong(Member::getId).toArray();
+
+            load(port, ids, 100, 10); // warm up
+            return load(port, ids, CLIENTS, REQUESTS_PER_CLIENT);
+        }
+    }
+
+    private Result load(int port, long[] ids, int clients, int requestsPerClient) {
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> loops = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            loops.add(loop(port, ids, requestsPerClient, latencies, completed, errors));
+        }
+        CompletableFuture.allOf(loops.toArray(new CompletableFuture<?>[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(latencies.length * 1_000_000_000.0 / elapsed,
+                latencies[latencies.length / 2], latencies[(int) (latencies.length * 0.99)], errors.get());
+    }
+
+    private CompletableFuture<Void> loop(int port, long[] ids, int remaining, long[] latencies,
+                                         AtomicInteger completed, AtomicInteger errors) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/members/" + id))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    latencies[completed.getAndIncrement()] = System.nanoTime() - start;
+                    if (error != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(port, ids, remaining - 1, latencies, completed, errors));
+    }
+
+    private static class Result {
+        private final double throughput;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final int errors;
+
+        private Result(double throughput, long p50Nanos, long p99Nanos, int errors) {
+            this.throughput = throughput;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.errors = errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %.1f ms, p99 %.1f ms, errors %d",
+                    throughput, p50Nanos / 1e6, p99Nanos / 1e6, errors);
+        }
+    }
+}
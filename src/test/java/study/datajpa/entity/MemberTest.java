@@ -1,5 +1,6 @@
 package study.datajpa.entity;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,7 +12,9 @@ import javax.lang.model.SourceVersion;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,5 +82,46 @@ class MemberTest {
         System.out.println("findMember.getLastModifiedBy() = " + findMember.getLastModifiedBy());
     }
 
+    @Test
+    public void auditorPerTransaction() {
+        // given - 같은 트랜잭션에서 저장
+        Member member1 = memberRepository.save(new Member("auditor1"));
+        Member member2 = memberRepository.save(new Member("auditor2"));
+        em.flush();
+
+        // then - 작성자는 트랜잭션마다 한번만 만든다.
+        assertNotNull(member1.getCreatedBy());
+        assertEquals(member1.getCreatedBy(), member2.getCreatedBy());
+    }
+
+    @Test
+    public void pooledLoIds() {
+        // given - 할당 크기(50) 보다 많이 저장
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            Member member = new Member("pooledLo" + i);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+
+        // then - 시퀀스 값 하나로 50개씩 겹치지 않게 할당된다.
+        assertEquals(120, ids.size());
+    }
+
+    @Test
+    public void changeTeamDoesNotLoadMembers() {
+        // given
+        Team team = new Team("extraLazyTeam");
+        em.persist(team);
+        em.persist(new Member("extraLazy1", 10, team));
+        em.flush();
+        em.clear();
+
+        // when - 생성자에서 changeTeam() -> team.getMembers().add(this)
+        Team findTeam = em.find(Team.class, team.getId());
+        em.persist(new Member("extraLazy2", 20, findTeam));
 
-}
\ No newline at end of file
+        // then - extra lazy 컬렉션이라 add 로는 회원 목록을 조회하지 않는다.
+        assertFalse(Hibernate.isInitialized(findTeam.getMembers()));
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트에서 sql 실행 횟수를 검증한다. (N+1 이 생기면 테스트가 깨진다)
+ *
+ *   resetSqlCount();
+ *   ... 검증할 코드 ...
+ *   assertSqlCount(2);
+ */
+public final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+    public static void resetSqlCount() {
+        SqlStatistics.current().reset();
+    }
+
+    public static void assertSqlCount(long expected) {
+        assertThat(SqlStatistics.current().getStatements()).as("sql statement count").isEqualTo(expected);
+    }
+}
@@ -3,8 +3,11 @@ package study.datajpa.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
 import study.datajpa.entity.Item;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -18,4 +21,22 @@ class ItemRepositoryTest {
         Item item = new Item("A");
         itemRepository.save(item);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void insertAllAndInsertIgnoreAll() {
+        // when - select 없이 insert
+        int inserted = itemRepository.insertAll(List.of(new Item("bulk-1"), new Item("bulk-2")));
+
+        // then
+        assertEquals(2, inserted);
+        assertTrue(itemRepository.findById("bulk-1").isPresent()); // String id 로 조회
+
+        // 이미 있는 id 는 insertAll 이면 실패, insertIgnoreAll 이면 건너뛴다.
+        assertThrows(DuplicateKeyException.class, () -> itemRepository.insertAll(List.of(new Item("bulk-1"))));
+        Item newItem = new Item("bulk-3");
+        int insertedIfAbsent = itemRepository.insertIgnoreAll(List.of(new Item("bulk-2"), newItem));
+        assertEquals(1, insertedIfAbsent);
+        assertFalse(newItem.isNew());
+        assertTrue(itemRepository.existsById("bulk-3"));
+    }
+}
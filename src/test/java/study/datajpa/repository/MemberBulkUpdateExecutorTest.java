@@ -0,0 +1,38 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.entity.Member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 파티션마다 별도 트랜잭션으로 커밋하므로 테스트에 @Transactional 을 붙이지 않는다.
+@SpringBootTest
+class MemberBulkUpdateExecutorTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberBulkUpdateExecutor memberBulkUpdateExecutor;
+
+    @Test
+    public void partitionedBulkUpdate() {
+        // given
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("partition" + i, 900));
+        }
+
+        // when
+        BulkUpdateJob job = memberBulkUpdateExecutor.plan(900, 3);
+        memberBulkUpdateExecutor.execute(job, 2);
+
+        // then
+        assertThat(job.isDone()).isTrue();
+        assertThat(job.getUpdatedRows()).isEqualTo(10);
+        assertThat(memberRepository.findByAge(901, PageRequest.of(0, 20)).getTotalElements()).isEqualTo(10);
+
+        // 이미 끝난 job 은 다시 실행해도 업데이트하지 않는다.
+        memberBulkUpdateExecutor.execute(job, 2);
+        assertThat(job.getUpdatedRows()).isEqualTo(10);
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -17,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 class MemberJpaRepositoryTest {
 
     @Autowired MemberJpaRepository memberJpaRepository;
+    @PersistenceContext EntityManager em;
 
     @Test
     public void testMember() {
@@ -121,4 +124,28 @@ class MemberJpaRepositoryTest {
         // then
         assertThat(resultCount).isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void autoFlushClear() {
+        // given
+        Member first = memberJpaRepository.save(new Member("autoFlushClear0"));
+
+        // when - save() 는 영속성 컨텍스트를 비우지 않는다.
+        for (int i = 1; i < 999; i++) {
+            memberJpaRepository.save(new Member("autoFlushClear" + i));
+        }
+
+        // then
+        assertThat(em.contains(first)).isTrue();
+
+        // when - saveInBulk() 는 영속성 컨텍스트가 1000개가 되면 flush + clear
+        memberJpaRepository.saveInBulk(new Member("autoFlushClear999"));
+        Member last = new Member("autoFlushClear1000");
+        memberJpaRepository.saveInBulk(last);
+
+        // then - 앞에서 저장한 회원은 db 에 반영되고 영속성 컨텍스트에서는 빠졌다.
+        assertThat(em.contains(first)).isFalse();
+        assertThat(em.contains(last)).isTrue();
+        assertThat(memberJpaRepository.find(first.getId()).getUsername()).isEqualTo("autoFlushClear0");
+    }
+}
@@ -1,13 +1,23 @@
 package study.datajpa.repository;
 
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.repository.Repository;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
@@ -15,11 +25,22 @@ import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.datajpa.metrics.SqlAssertions.assertSqlCount;
+import static study.datajpa.metrics.SqlAssertions.resetSqlCount;
 
 @SpringBootTest
 @Transactional
@@ -28,6 +49,11 @@ class MemberRepositoryTest {
 
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
+    @Autowired IndexAdvisor indexAdvisor;
+    @Autowired PageCounts pageCounts;
+    @Autowired PageCountPostProcessor pageCountPostProcessor;
+    @Autowired BeanFactory beanFactory;
+    @Autowired MemberReadOnlyRepository memberReadOnlyRepository;
     @PersistenceContext
     EntityManager entityManager;
 
@@ -176,6 +202,29 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findByNamesSplit() {
+        // given
+        memberRepository.save(new Member("splitMember1", 10));
+        memberRepository.save(new Member("splitMember2", 10));
+        entityManager.flush();
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            names.add("splitName" + i);
+        }
+        names.set(0, "splitMember1");
+        names.set(1499, "splitMember2");
+
+        // when - 1000개씩 나눠서 실행
+        resetSqlCount();
+        List<Member> members = memberRepository.findByNames(names);
+
+        // then
+        assertSqlCount(2);
+        assertThat(members).extracting("username").containsExactlyInAnyOrder("splitMember1", "splitMember2");
+    }
+
     // 반환타입
     @Test
     public void testNamedQuery7() {
@@ -249,6 +298,122 @@ class MemberRepositoryTest {
         // page 는 1부터가아니라 0부터 이다.
     }
 
+    @Test
+    public void countMode() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("count" + i, 800));
+        }
+        entityManager.flush();
+
+        // when - 첫 페이지가 size 보다 적으면 content 로 total 을 알 수 있으므로 count 쿼리를 생략한다.
+        resetSqlCount();
+        Page<Member> shortPage = memberRepository.findByAge(800, PageRequest.of(0, 10));
+
+        // then
+        assertThat(shortPage.getTotalElements()).isEqualTo(5);
+        assertSqlCount(1);
+
+        // when - findAllDto 는 @PageCount(CACHED) 이므로 count 를 잠깐 재사용한다. (다른 테스트가 남긴 count 는 버린다)
+        pageCounts.clear();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("username"));
+        Page<MemberDto> cached = memberRepository.findAllDto(pageRequest);
+        memberRepository.save(new Member("count6", 800));
+        entityManager.flush();
+        Page<MemberDto> cachedAgain = memberRepository.findAllDto(pageRequest);
+        long exact = entityManager.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+
+        // then
+        assertThat(cachedAgain.getTotalElements()).isEqualTo(cached.getTotalElements());
+        assertThat(exact).isEqualTo(cached.getTotalElements() + 1);
+
+        // findByAge 는 @PageCount 가 없으므로 기본값(EXACT)
+        assertThat(memberRepository.findByAge(800, PageRequest.of(0, 3, Sort.by("username"))).getTotalElements()).isEqualTo(6);
+    }
+
+    interface QueryMethodPageCountRepository extends Repository<Member, Long> {
+        @PageCount(CountMode.CACHED)
+        Page<Member> findByUsername(String username, Pageable pageable);
+    }
+
+    @Test
+    public void pageCountOnQueryMethod() {
+        // 쿼리 메소드의 count 는 spring data 가 실행하므로 @PageCount 를 적용할 수 없다. -> 무시하지 않고 예외
+        JpaRepositoryFactoryBean<QueryMethodPageCountRepository, Member, Long> factoryBean =
+                new JpaRepositoryFactoryBean<>(QueryMethodPageCountRepository.class);
+        factoryBean.setEntityManager(entityManager);
+        factoryBean.setBeanFactory(beanFactory);
+        factoryBean.setEntityPathResolver(beanFactory.getBeanProvider(EntityPathResolver.class));
+        pageCountPostProcessor.postProcessBeforeInitialization(factoryBean, "queryMethodPageCountRepository");
+
+        assertThatThrownBy(factoryBean::afterPropertiesSet)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("findByUsername");
+    }
+
+    @Test
+    public void keysetPaging() {
+        // given
+        memberRepository.save(new Member("keyset1", 1000));
+        memberRepository.save(new Member("keyset2", 1000));
+        memberRepository.save(new Member("keyset3", 1000));
+        memberRepository.save(new Member("keyset4", 1000));
+        memberRepository.save(new Member("keyset5", 1000));
+
+        // when
+        CursorWindow<Member> first = memberRepository.findByAgeAfter(999, null, 2);
+        CursorWindow<Member> second = memberRepository.findByAgeAfter(999, MemberCursor.decode(first.getNextCursor()), 2);
+        CursorWindow<Member> last = memberRepository.findByAgeAfter(999, MemberCursor.decode(second.getNextCursor()), 2);
+
+        // then - offset 없이 마지막 (username, id) 다음부터 조회
+        assertThat(first.getContent()).extracting("username").containsExactly("keyset1", "keyset2");
+        assertThat(second.getContent()).extracting("username").containsExactly("keyset3", "keyset4");
+        assertThat(last.getContent()).extracting("username").containsExactly("keyset5");
+        assertThat(last.isLast()).isTrue();
+
+        // limit 는 1 이상
+        assertThatThrownBy(() -> memberRepository.findAllAfter(null, 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+
+    @Test
+    public void saveAllBatched() {
+        // given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batch" + i, 600));
+        }
+
+        // when - 100개씩 flush + clear
+        int saved = memberRepository.saveAllBatched(members, 100);
+
+        // then
+        assertThat(saved).isEqualTo(250);
+        assertThat(entityManager.contains(members.get(0))).isFalse(); // clear 되어서 준영속 상태
+        assertThat(memberRepository.findByAge(600, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(250);
+    }
+
+    @Test
+    public void streamAllMembers() {
+        // given
+        Team team = new Team("streamTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("stream1", 10, team));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        // when - 커서로 읽기 때문에 try-with-resources 로 닫아야 한다.
+        List<MemberDto> result;
+        try (Stream<MemberDto> members = memberRepository.streamAllMembers()) {
+            result = members.filter(dto -> "stream1".equals(dto.getUsername()))
+                    .collect(Collectors.toList());
+        }
+
+        // then
+        assertThat(result).extracting("teamName").containsExactly("streamTeam");
+    }
+
     @Test
     public void bulkUpdate() {
         // given
@@ -274,6 +439,21 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    @Test
+    public void queryCacheAfterBulkUpdate() {
+        // given
+        memberRepository.save(new Member("cached1", 700));
+        entityManager.flush();
+
+        memberRepository.findByUsername("cached1"); // 쿼리 캐시에 저장
+
+        // when - 벌크 연산은 member 테이블의 쿼리 캐시 / 2차 캐시를 무효화한다.
+        memberRepository.bulkAgePlus(700);
+
+        // then
+        assertThat(memberRepository.findByUsername("cached1").get(0).getAge()).isEqualTo(701);
+    }
+
     // entity graph 객체그래프를 역어허 한번에 조회 (= fetch join)
     @Test
     public void findMemberLazy() {
@@ -308,6 +488,48 @@ class MemberRepositoryTest {
         }
     }
 
+    // default_batch_fetch_size : N 번의 지연로딩이 ceil(N / batchSize) 번의 in 쿼리로 줄어든다.
+    @Test
+    public void batchFetch() {
+        // given
+        List<String> names = new ArrayList<>();
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Team team = teamRepository.save(new Team("batchTeam" + i));
+            teamIds.add(team.getId());
+            for (int j = 0; j < 2; j++) {
+                String name = "batchFetch" + i + "_" + j;
+                memberRepository.save(new Member(name, 10, team));
+                names.add(name);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        // when - member.team 프록시 초기화
+        resetSqlCount();
+        List<Member> members = memberRepository.findByNames(names);
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+
+        // then - select member 1 + select team ... in (?, ?, ?) 1
+        assertThat(members).hasSize(6);
+        assertSqlCount(2);
+
+        // when - team.members 컬렉션 초기화
+        entityManager.clear();
+        resetSqlCount();
+        List<Team> teams = teamRepository.findAllById(teamIds);
+        for (Team team : teams) {
+            Hibernate.initialize(team.getMembers()); // extra lazy 라서 size() 는 count 쿼리만 실행한다.
+        }
+
+        // then - select team 1 + select member ... where team_id in (?, ?, ?) 1
+        assertSqlCount(2);
+    }
+
     // hint && lock
     @Test
     public void queryHint() {
@@ -327,7 +549,100 @@ class MemberRepositoryTest {
         entityManager.flush(); // 변경감지 동작 -> 더티체킹안함 (@QueryHints 사용시)
 
     }
+
+    @Test
+    public void readOnlyRepository() {
+        // given
+        Member member = memberRepository.save(new Member("readOnlyMember", 10));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when - 읽기/쓰기 트랜잭션에 참여해도 read-only 로 로딩
+        Member findMember = memberReadOnlyRepository.findById(member.getId()).get();
+        findMember.setUsername("changed");
+        entityManager.flush(); // 스냅샷이 없으므로 update 쿼리가 나가지 않음
+        entityManager.clear();
+
+        // then
+        assertThat(memberRepository.findById(member.getId()).get().getUsername()).isEqualTo("readOnlyMember");
+        assertThat(entityManager.unwrap(Session.class).isDefaultReadOnly()).isFalse(); // 호출이 끝나면 원래대로
+    }
     
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 재시도마다 새 트랜잭션으로 실행된다.
+    public void updateWithRetry() throws Exception {
+        // given
+        Member member = memberRepository.save(new Member("optimisticMember", 0));
+        int writers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when - 같은 회원을 동시에 변경 -> 충돌한 writer 는 다시 읽어서 재시도
+        List<Future<Member>> results = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return memberRepository.updateWithRetry(member.getId(), m -> m.setAge(m.getAge() + 1));
+            }));
+        }
+        start.countDown();
+        for (Future<Member> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+
+        // then - 변경이 유실되지 않음
+        Member findMember = memberRepository.findById(member.getId()).get();
+        assertThat(findMember.getAge()).isEqualTo(writers);
+        assertThat(findMember.getVersion()).isEqualTo(member.getVersion() + writers);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 비동기 쿼리는 다른 스레드의 트랜잭션에서 실행된다.
+    public void findAsync() throws Exception {
+        // given
+        memberRepository.save(new Member("asyncMember", 10));
+
+        // when
+        resetSqlCount();
+        CompletableFuture<List<Member>> members = memberRepository.findByUsernameAsync("asyncMember");
+        CompletableFuture<Page<MemberDto>> page = memberRepository.findAllAsync(PageRequest.of(0, 3, Sort.by("username")));
+
+        // then - 쿼리는 호출한 스레드가 아니라 repositoryExecutor 에서 실행
+        assertThat(members.get()).extracting("username").containsExactly("asyncMember");
+        assertThat(page.get().getContent()).hasSize(3);
+        assertThat(page.get().getTotalElements()).isGreaterThanOrEqualTo(3);
+        assertSqlCount(0);
+    }
+
+    @Test
+    public void findAllByIds() {
+        // given
+        Member member1 = memberRepository.save(new Member("idsMember1", 10));
+        Member member2 = memberRepository.save(new Member("idsMember2", 20));
+        entityManager.flush();
+        entityManager.clear();
+
+        // IN 절 크기(512)를 넘도록 없는 id 를 섞는다. (음수 id 는 없음)
+        long[] ids = new long[600];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = -i - 1;
+        }
+        ids[0] = member1.getId();
+        ids[599] = member2.getId();
+        ids[300] = member2.getId(); // 중복
+
+        // when
+        LongObjectMap<Member> result = memberRepository.findAllByIds(ids);
+
+        // then
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.get(member1.getId()).getUsername()).isEqualTo("idsMember1");
+        assertThat(result.containsKey(-2)).isFalse();
+        assertThat(memberRepository.existsAll(new long[]{member1.getId(), member2.getId(), member1.getId()})).isTrue();
+        assertThat(memberRepository.existsAll(ids)).isFalse();
+    }
+
     @Test
     public void callCustom() {
         var result = memberRepository.findMemberCustom();
@@ -376,6 +691,62 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void nestedProjectionSingleQuery() {
+        // given
+        Team team = teamRepository.save(new Team("nestedProjectionTeam"));
+        memberRepository.save(new Member("nestedProjection", 16, team));
+        memberRepository.save(new Member("nestedProjection", 17));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when - select m.username, t.name ... left join 한번으로 조회
+        resetSqlCount();
+        List<NestedClosedProjections> result = memberRepository.findProjectionsByUsername("nestedProjection", NestedClosedProjections.class);
+
+        // then
+        assertSqlCount(1);
+        assertThat(result).hasSize(2);
+        assertThat(result).extracting(NestedClosedProjections::getUsername).containsOnly("nestedProjection");
+        assertThat(result).extracting(projection -> projection.getTeam() == null ? null : projection.getTeam().getName())
+                .containsExactlyInAnyOrder("nestedProjectionTeam", null);
+    }
+
+    @Test
+    public void indexAdvisor() {
+        // (username, age) 는 findByUsernameAndAgeGreaterThan, findUser 용이고 findByUsername 의 (username) 도 처리한다.
+        List<IndexAdvisor.Recommendation> recommendations = indexAdvisor.recommendations();
+        assertThat(recommendations).extracting(IndexAdvisor.Recommendation::getColumns)
+                .contains(List.of("username", "age"), List.of("age"))
+                .doesNotContain(List.of("username"));
+
+        // username 으로 시작하는 인덱스는 있지만 (username, member_id) 라서 (username, age) 는 없다.
+        assertThat(indexAdvisor.missingIndexes()).extracting(IndexAdvisor.Recommendation::getColumns)
+                .contains(List.of("username", "age"));
+    }
+
+    @Test
+    public void openProjection() {
+        // given
+        memberRepository.save(new Member("openProjection", 15));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when - @Value 가 참조하는 username, age 만 조회하고 SpEL 로 값을 만든다. (파싱은 한번만)
+        resetSqlCount();
+        List<UsernameOnly> result = memberRepository.findProductionsByUsername("openProjection");
+
+        // then - 엔티티를 영속성 컨텍스트에 올리지 않는다.
+        assertSqlCount(1);
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getUsername()).isEqualTo("openProjection 15");
+        assertThat(result.get(0).toString()).startsWith("UsernameOnly");
+        // 쿼리 메소드는 엔티티를 조회해서 만든다.
+        assertThat(memberRepository.findProductionsGenericByUsername("openProjection", UsernameOnly.class))
+                .extracting(UsernameOnly::getUsername).containsExactly("openProjection 15");
+    }
+
     // native query
     //    @Query(value = "select * from member where username = ?", nativeQuery = true)
     //    Member findByNativeQuery(String username);
@@ -411,7 +782,69 @@ class MemberRepositoryTest {
         List<MemberProjection> content = result2.getContent();
 
         for (MemberProjection memberProjection : content) {
-            System.out.println("memberProjection = " + memberProjection.getUsername());
+            System.out.println("memberProjection = " + memberProjection.getUsername() + ", " + memberProjection.getTeamName());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findMemberDtoNative() {
+        // given
+        Team team = teamRepository.save(new Team("nativeDtoTeam"));
+        Member member = memberRepository.save(new Member("nativeDto", 18, team));
+
+        // when - 최근 id 순으로 첫 페이지 (flush 하지 않아도 native 쿼리 전에 auto flush 된다)
+        Page<MemberDto> page = memberRepository.findMemberDtoNative(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "id")));
+
+        // then
+        MemberDto dto = page.getContent().get(0);
+        assertThat(dto.getId()).isEqualTo(member.getId());
+        assertThat(dto.getUsername()).isEqualTo("nativeDto");
+        assertThat(dto.getTeamName()).isEqualTo("nativeDtoTeam");
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(1);
+
+        // findAllDto 와 같은 정렬 (엔티티 경로 -> 컬럼)
+        Page<MemberDto> byTeam = memberRepository.findMemberDtoNative(PageRequest.of(0, 1,
+                Sort.by(Sort.Direction.DESC, "age").and(Sort.by("team.name"))));
+        assertThat(byTeam.getContent()).isNotEmpty();
+
+        // 없는 정렬 프로퍼티는 sql 에 붙이지 않는다.
+        assertThatThrownBy(() -> memberRepository.findMemberDtoNative(PageRequest.of(0, 1, Sort.by("age; drop table member"))))
+                .isInstanceOf(PropertyReferenceException.class);
+    }
+
+    @Test
+    public void findAllDto() {
+        // given
+        Team teamA = teamRepository.save(new Team("dtoTeamA"));
+        Team teamB = teamRepository.save(new Team("dtoTeamB"));
+        Member member1 = memberRepository.save(new Member("dtoMember1", 10, teamB));
+        Member member2 = memberRepository.save(new Member("dtoMember2", 10, teamA));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when - dto 프로퍼티 이름으로 정렬 (teamName -> team.name)
+        Page<MemberDto> page = memberRepository.findAllDto(PageRequest.of(0, 1000,
+                Sort.by(Sort.Direction.DESC, "teamName").and(Sort.by("username"))));
+
+        // then - 엔티티를 영속성 컨텍스트에 올리지 않고 dto 로 바로 조회한다.
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        // 다른 테스트가 남긴 회원도 있으므로 (rollback false) 이번에 저장한 회원만 순서를 확인한다.
+        List<MemberDto> saved = page.getContent().stream()
+                .filter(dto -> dto.getId() == member1.getId() || dto.getId() == member2.getId())
+                .collect(Collectors.toList());
+        assertThat(saved).extracting(MemberDto::getId).containsExactly(member1.getId(), member2.getId());
+        assertThat(saved).extracting(MemberDto::getTeamName).containsExactly("dtoTeamB", "dtoTeamA");
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(2);
+
+        // findAll(pageable) 처럼 엔티티 프로퍼티 경로로도 정렬할 수 있다. (team.name 은 left join 을 그대로 쓴다)
+        Page<MemberDto> byAge = memberRepository.findAllDto(PageRequest.of(0, 1000,
+                Sort.by(Sort.Direction.DESC, "age").and(Sort.by("team.name"))));
+        assertThat(byAge.getContent()).extracting(MemberDto::getId)
+                .filteredOn(id -> id == member1.getId() || id == member2.getId())
+                .containsExactly(member2.getId(), member1.getId());
+
+        // 없는 프로퍼티는 쿼리에 붙이지 않는다.
+        assertThatThrownBy(() -> memberRepository.findAllDto(PageRequest.of(0, 1, Sort.by("age; drop table member"))))
+                .isInstanceOf(PropertyReferenceException.class);
+    }
+}